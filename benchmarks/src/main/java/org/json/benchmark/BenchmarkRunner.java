@@ -0,0 +1,48 @@
+package org.json.benchmark;
+
+/*
+Public Domain.
+*/
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the regular JMH command line
+ * options and adds two defaults so that every run can be compared against a
+ * previous one: the GC profiler (allocation rate per operation) is always
+ * attached, and the results are written to <code>jmh-result.json</code>
+ * unless another result file is requested.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Run the benchmarks.
+     * @param args JMH command line options, for example a benchmark regular
+     *  expression or <code>-p corpus=LARGE</code>.
+     * @throws RunnerException if a benchmark fails.
+     * @throws CommandLineOptionException if the command line is invalid.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (!commandLine.getResult().hasValue()) {
+            options.result("jmh-result.json");
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(options.build()).run();
+    }
+}
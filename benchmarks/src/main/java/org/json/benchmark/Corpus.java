@@ -0,0 +1,176 @@
+package org.json.benchmark;
+
+/*
+Public Domain.
+*/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The documents used by the benchmarks. The synthetic corpora are generated
+ * from a fixed seed so that every run measures exactly the same input; the
+ * real-world corpora are the sample documents shipped with the unit tests.
+ * <p>
+ * Every corpus provides a JSON object, a JSON array and an XML document, plus
+ * a JSONPointer that lands in the second half of the XML document so that
+ * pointer queries have to scan most of the input.
+ */
+public enum Corpus {
+    /** About 2KB per document: a handful of records. */
+    SMALL(8),
+    /** About 100KB per document. */
+    MEDIUM(400),
+    /** About 4MB per document. */
+    LARGE(16000),
+    /** The sample documents from src/test/resources. */
+    REAL(-1);
+
+    /** Seed for the synthetic generator, fixed for reproducible runs. */
+    private static final long SEED = 0x5EED262L;
+
+    private static final String[] WORDS = {
+        "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel",
+        "india", "juliet", "kilo", "lima", "mike", "november", "oscar", "papa"
+    };
+
+    private final int records;
+
+    Corpus(int records) {
+        this.records = records;
+    }
+
+    /**
+     * @return a JSON object text for this corpus.
+     */
+    public String jsonObject() {
+        if (this.records < 0) {
+            return resource("compliantJsonObject.json");
+        }
+        StringBuilder sb = new StringBuilder(this.records * 256);
+        sb.append("{\"count\":").append(this.records).append(",\"records\":");
+        appendRecords(sb, new Random(SEED), this.records);
+        sb.append(",\"source\":\"synthetic \\\"corpus\\\" \\u00e9\\n\"}");
+        return sb.toString();
+    }
+
+    /**
+     * @return a JSON array text for this corpus.
+     */
+    public String jsonArray() {
+        if (this.records < 0) {
+            return resource("compliantJsonArray.json");
+        }
+        StringBuilder sb = new StringBuilder(this.records * 256);
+        appendRecords(sb, new Random(SEED), this.records);
+        return sb.toString();
+    }
+
+    /**
+     * @return an XML text for this corpus.
+     */
+    public String xml() {
+        if (this.records < 0) {
+            return resource("books.xml");
+        }
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(this.records * 320);
+        sb.append("<?xml version=\"1.0\"?>\n<catalog>\n");
+        for (int i = 0; i < this.records; i++) {
+            sb.append("  <record id=\"r").append(i).append("\" active=\"")
+                    .append(random.nextBoolean()).append("\">\n");
+            sb.append("    <name>").append(word(random)).append(' ').append(word(random)).append("</name>\n");
+            sb.append("    <score>").append(String.format(Locale.ROOT, "%.3f", random.nextDouble() * 1000)).append("</score>\n");
+            sb.append("    <!-- generated record ").append(i).append(" -->\n");
+            sb.append("    <tags>");
+            for (int t = 0; t < 3; t++) {
+                sb.append("<tag>").append(word(random)).append("</tag>");
+            }
+            sb.append("</tags>\n");
+            sb.append("    <address><street>").append(random.nextInt(9999)).append(' ')
+                    .append(word(random)).append(" street</street><city>").append(word(random))
+                    .append("</city></address>\n");
+            sb.append("    <notes><![CDATA[<b>").append(word(random)).append("</b> & more]]></notes>\n");
+            sb.append("  </record>\n");
+        }
+        sb.append("  <summary><total>").append(this.records).append("</total></summary>\n");
+        sb.append("</catalog>\n");
+        return sb.toString();
+    }
+
+    /**
+     * @return a JSONPointer expression that addresses an element in the
+     *  second half of {@link #xml()}.
+     */
+    public String xmlPointer() {
+        if (this.records < 0) {
+            return "/catalog/book/9";
+        }
+        return "/catalog/record/" + (this.records * 3 / 4) + "/address";
+    }
+
+    /**
+     * @return a JSONPointer expression addressing an element that
+     *  {@link org.json.XML#toJSONObject(java.io.Reader, org.json.JSONPointer, org.json.JSONObject)}
+     *  can replace in {@link #xml()}.
+     */
+    public String xmlReplacePointer() {
+        if (this.records < 0) {
+            return "/catalog/book";
+        }
+        return "/catalog/summary";
+    }
+
+    private static void appendRecords(StringBuilder sb, Random random, int count) {
+        sb.append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i)
+                    .append(",\"uuid\":\"").append(Long.toHexString(random.nextLong())).append('"')
+                    .append(",\"name\":\"").append(word(random)).append(' ').append(word(random)).append('"')
+                    .append(",\"active\":").append(random.nextBoolean())
+                    .append(",\"score\":").append(String.format(Locale.ROOT, "%.4f", random.nextDouble() * 1000))
+                    .append(",\"timestamp\":").append(1600000000000L + random.nextInt(Integer.MAX_VALUE))
+                    .append(",\"tags\":[\"").append(word(random)).append("\",\"").append(word(random)).append("\"]")
+                    .append(",\"address\":{\"street\":\"").append(random.nextInt(9999)).append(' ')
+                    .append(word(random)).append(" street\",\"city\":\"").append(word(random))
+                    .append("\",\"geo\":[").append(random.nextInt(180) - 90).append(',')
+                    .append(random.nextInt(360) - 180).append("]}")
+                    .append(",\"comment\":\"line one\\nline \\\"two\\\" \\u2603\"")
+                    .append(",\"parent\":null}");
+        }
+        sb.append(']');
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String resource(String name) {
+        InputStream in = Corpus.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalStateException("Missing benchmark resource " + name);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read benchmark resource " + name, e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.json.benchmark;
+
+/*
+Public Domain.
+*/
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing benchmarks for {@link JSONObject#JSONObject(JSONTokener)} and
+ * {@link JSONArray#JSONArray(JSONTokener)}, from both a String source and a
+ * Reader source.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JSONParseBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "REAL"})
+    public Corpus corpus;
+
+    private String objectText;
+    private String arrayText;
+
+    @Setup
+    public void setup() {
+        this.objectText = this.corpus.jsonObject();
+        this.arrayText = this.corpus.jsonArray();
+    }
+
+    @Benchmark
+    public JSONObject objectFromString() {
+        return new JSONObject(new JSONTokener(this.objectText));
+    }
+
+    @Benchmark
+    public JSONObject objectFromReader() {
+        return new JSONObject(new JSONTokener(new StringReader(this.objectText)));
+    }
+
+    @Benchmark
+    public JSONArray arrayFromString() {
+        return new JSONArray(new JSONTokener(this.arrayText));
+    }
+
+    @Benchmark
+    public JSONArray arrayFromReader() {
+        return new JSONArray(new JSONTokener(new StringReader(this.arrayText)));
+    }
+}
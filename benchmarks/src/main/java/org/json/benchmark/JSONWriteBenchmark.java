@@ -0,0 +1,71 @@
+package org.json.benchmark;
+
+/*
+Public Domain.
+*/
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.StringBuilderWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization benchmarks for {@link JSONObject#toString()},
+ * {@link JSONObject#toString(int)} and {@link JSONObject#write(Writer)}.
+ * The trees are built once in the setup so only the serialization is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JSONWriteBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "REAL"})
+    public Corpus corpus;
+
+    private JSONObject object;
+    private JSONArray array;
+    private int expectedLength;
+
+    @Setup
+    public void setup() {
+        this.object = new JSONObject(this.corpus.jsonObject());
+        this.array = new JSONArray(this.corpus.jsonArray());
+        this.expectedLength = this.object.toString().length();
+    }
+
+    @Benchmark
+    public String objectToString() {
+        return this.object.toString();
+    }
+
+    @Benchmark
+    public String objectToIndentedString() {
+        return this.object.toString(2);
+    }
+
+    @Benchmark
+    public Writer objectWrite() {
+        return this.object.write(new StringBuilderWriter(this.expectedLength));
+    }
+
+    @Benchmark
+    public String arrayToString() {
+        return this.array.toString();
+    }
+}
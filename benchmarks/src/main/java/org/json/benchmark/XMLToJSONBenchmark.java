@@ -0,0 +1,114 @@
+package org.json.benchmark;
+
+/*
+Public Domain.
+*/
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONPointer;
+import org.json.XML;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link XML#toJSONObject(java.io.Reader)} and the JSONPointer
+ * and key transformer variants.
+ * <p>
+ * {@link #keyTransformerTwoPass()} is the client-side alternative to
+ * {@link #keyTransformerOnePass()}: convert the whole document first and
+ * rename the keys afterwards. Comparing the two measures the one-pass claim
+ * made for {@link XML#toJSONObject(java.io.Reader, Function)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XMLToJSONBenchmark {
+
+    private static final Function<String, String> PREFIX = new Function<String, String>() {
+        @Override
+        public String apply(String key) {
+            return "swe262_" + key;
+        }
+    };
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "REAL"})
+    public Corpus corpus;
+
+    private String xml;
+    private JSONPointer pointer;
+    private JSONPointer replacePointer;
+    private JSONObject replacement;
+
+    @Setup
+    public void setup() {
+        this.xml = this.corpus.xml();
+        this.pointer = new JSONPointer(this.corpus.xmlPointer());
+        this.replacePointer = new JSONPointer(this.corpus.xmlReplacePointer());
+        this.replacement = new JSONObject().put("replaced", true);
+    }
+
+    @Benchmark
+    public JSONObject toJSONObject() {
+        return XML.toJSONObject(new StringReader(this.xml));
+    }
+
+    @Benchmark
+    public JSONObject pointerQuery() {
+        return XML.toJSONObject(new StringReader(this.xml), this.pointer);
+    }
+
+    @Benchmark
+    public JSONObject pointerReplace() {
+        return XML.toJSONObject(new StringReader(this.xml), this.replacePointer, this.replacement);
+    }
+
+    @Benchmark
+    public JSONObject keyTransformerOnePass() {
+        return XML.toJSONObject(new StringReader(this.xml), PREFIX);
+    }
+
+    @Benchmark
+    public JSONObject keyTransformerTwoPass() {
+        return transformKeys(XML.toJSONObject(new StringReader(this.xml)));
+    }
+
+    private static JSONObject transformKeys(JSONObject source) {
+        JSONObject result = new JSONObject();
+        for (String key : source.keySet()) {
+            result.put(PREFIX.apply(key), transformValue(source.opt(key)));
+        }
+        return result;
+    }
+
+    private static Object transformValue(Object value) {
+        if (value instanceof JSONObject) {
+            return transformKeys((JSONObject) value);
+        }
+        if (value instanceof JSONArray) {
+            JSONArray source = (JSONArray) value;
+            JSONArray result = new JSONArray(source.length());
+            for (int i = 0; i < source.length(); i++) {
+                result.put(transformValue(source.opt(i)));
+            }
+            return result;
+        }
+        return value;
+    }
+}
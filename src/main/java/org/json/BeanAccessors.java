@@ -0,0 +1,111 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The getters of a bean class that become the keys of a JSONObject, with
+ * their key names resolved from the method names and the
+ * {@link JSONPropertyName} and {@link JSONPropertyIgnore} annotations. They
+ * are found once per class and kept in a {@link ClassValue}, so beans of the
+ * same class are read without looking up methods or annotations again, and a
+ * class loader is not kept alive by the cache.
+ */
+final class BeanAccessors {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<BeanAccessors> CACHE = new ClassValue<BeanAccessors>() {
+        @Override
+        protected BeanAccessors computeValue(Class<?> klass) {
+            return new BeanAccessors(klass);
+        }
+    };
+
+    /**
+     * One getter of a bean class.
+     */
+    static final class Accessor {
+
+        /** The key of the value in the JSONObject. */
+        final String key;
+
+        /** The getter. */
+        private final Method method;
+
+        /** The getter adapted to (Object)Object, or null if it cannot be accessed. */
+        private final MethodHandle handle;
+
+        Accessor(String key, Method method, MethodHandle handle) {
+            this.key = key;
+            this.method = method;
+            this.handle = handle;
+        }
+
+        /**
+         * Call the getter.
+         *
+         * @param bean the bean.
+         * @return the value returned by the getter.
+         * @throws Throwable whatever the getter throws, or an
+         *         IllegalAccessException if it cannot be called.
+         */
+        Object get(Object bean) throws Throwable {
+            if (this.handle != null) {
+                return this.handle.invokeExact(bean);
+            }
+            return this.method.invoke(bean);
+        }
+    }
+
+    /** The getters, in the order of the methods of the class. */
+    final Accessor[] accessors;
+
+    private BeanAccessors(Class<?> klass) {
+        // If klass is a System class then set includeSuperClass to false.
+        boolean includeSuperClass = klass.getClassLoader() != null;
+
+        Method[] methods = includeSuperClass ? klass.getMethods() : klass.getDeclaredMethods();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<Accessor> list = new ArrayList<Accessor>();
+        for (final Method method : methods) {
+            final int modifiers = method.getModifiers();
+            if (Modifier.isPublic(modifiers)
+                    && !Modifier.isStatic(modifiers)
+                    && method.getParameterTypes().length == 0
+                    && !method.isBridge()
+                    && method.getReturnType() != Void.TYPE
+                    && JSONObject.isValidMethodName(method.getName())) {
+                final String key = JSONObject.getKeyNameFromMethod(method);
+                if (key != null && !key.isEmpty()) {
+                    MethodHandle handle;
+                    try {
+                        handle = lookup.unreflect(method).asType(GETTER_TYPE);
+                    } catch (IllegalAccessException e) {
+                        // left to Method.invoke, which reports the failure per call
+                        handle = null;
+                    }
+                    list.add(new Accessor(key, method, handle));
+                }
+            }
+        }
+        this.accessors = list.toArray(new Accessor[list.size()]);
+    }
+
+    /**
+     * @param klass the class of a bean.
+     * @return the getters of the class.
+     */
+    static Accessor[] of(Class<?> klass) {
+        return CACHE.get(klass).accessors;
+    }
+}
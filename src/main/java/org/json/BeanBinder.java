@@ -0,0 +1,559 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Creates Java beans from JSON, the reverse of
+ * {@link JSONObject#JSONObject(Object)}. A bean is created with its public
+ * no-argument constructor, and each member of the JSON object is passed to
+ * the public setter of the same key; members without a setter are ignored.
+ * The key of a setter is found like the key of a getter: <code>setName</code>
+ * sets <code>name</code>, and the {@link JSONPropertyName} and
+ * {@link JSONPropertyIgnore} annotations of the setter apply. A setter
+ * without these annotations uses those of its getter, so a bean read back
+ * from the JSON it was written to gets the same properties.
+ * <p>
+ * The values are converted to the declared parameter type of the setter:
+ * the primitive types and their wrappers, String, BigInteger, BigDecimal,
+ * enums, arrays, Collections and Maps with String keys (following their type
+ * arguments), JSONObject, JSONArray, Object, and other beans. A JSON null
+ * sets null, and leaves a primitive property unchanged.
+ * <p>
+ * The constructor and the setters of a class are looked up once and kept in
+ * a {@link ClassValue}.
+ */
+final class BeanBinder {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final MethodType SETTER_TYPE =
+            MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<Plan> PLANS = new ClassValue<Plan>() {
+        @Override
+        protected Plan computeValue(Class<?> klass) {
+            return new Plan(klass);
+        }
+    };
+
+    private BeanBinder() {
+    }
+
+    /**
+     * One setter of a bean class.
+     */
+    private static final class Setter {
+        final String key;
+        final Type type;
+        final Class<?> raw;
+        private final MethodHandle handle;
+
+        Setter(String key, Type type, Class<?> raw, MethodHandle handle) {
+            this.key = key;
+            this.type = type;
+            this.raw = raw;
+            this.handle = handle;
+        }
+
+        void set(Object bean, Object value) {
+            if (value == null && this.raw.isPrimitive()) {
+                return;
+            }
+            try {
+                this.handle.invokeExact(bean, value);
+            } catch (RuntimeException e) {
+                throw new JSONException("Unable to set " + JSONObject.quote(this.key)
+                        + " of " + bean.getClass().getName(), e);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JSONException("Unable to set " + JSONObject.quote(this.key)
+                        + " of " + bean.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * How to create and fill the instances of a class.
+     */
+    private static final class Plan {
+        private final Class<?> klass;
+
+        /** The no-argument constructor, or null. */
+        private final MethodHandle constructor;
+
+        /** The setters by key. */
+        final Map<String, Setter> setters = new HashMap<String, Setter>();
+
+        Plan(Class<?> klass) {
+            this.klass = klass;
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = null;
+            if (!klass.isInterface() && !Modifier.isAbstract(klass.getModifiers())
+                    && !klass.isPrimitive() && !klass.isArray()) {
+                try {
+                    Constructor<?> c = klass.getConstructor();
+                    handle = lookup.unreflectConstructor(c).asType(CONSTRUCTOR_TYPE);
+                } catch (NoSuchMethodException ignore) {
+                } catch (IllegalAccessException ignore) {
+                }
+            }
+            this.constructor = handle;
+            if (handle == null || klass.getClassLoader() == null) {
+                // system classes other than the collections are not beans
+                return;
+            }
+            for (final Method method : klass.getMethods()) {
+                final int modifiers = method.getModifiers();
+                if (!Modifier.isStatic(modifiers)
+                        && method.getParameterTypes().length == 1
+                        && !method.isBridge()
+                        && method.getName().startsWith("set")) {
+                    String key = keyOf(klass, method);
+                    if (key == null || key.isEmpty()) {
+                        continue;
+                    }
+                    Setter previous = this.setters.get(key);
+                    if (previous != null && previous.raw == getterType(klass, method)) {
+                        // an overloaded setter; the one taking the type of the getter wins
+                        continue;
+                    }
+                    try {
+                        MethodHandle setter = lookup.unreflect(method).asType(SETTER_TYPE);
+                        this.setters.put(key, new Setter(key, method.getGenericParameterTypes()[0],
+                                method.getParameterTypes()[0], setter));
+                    } catch (IllegalAccessException ignore) {
+                    }
+                }
+            }
+        }
+
+        Object newInstance() {
+            if (this.constructor == null) {
+                throw new JSONException("No public no-argument constructor for "
+                        + this.klass.getName());
+            }
+            try {
+                return this.constructor.invokeExact();
+            } catch (RuntimeException e) {
+                throw new JSONException("Unable to create " + this.klass.getName(), e);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JSONException("Unable to create " + this.klass.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * The key of a setter: from its own annotations if it has any, otherwise
+     * from its getter if there is one.
+     */
+    private static String keyOf(Class<?> klass, Method setter) {
+        if (JSONObject.getAnnotationDepth(setter, JSONPropertyName.class) < 0
+                && JSONObject.getAnnotationDepth(setter, JSONPropertyIgnore.class) < 0) {
+            Method getter = getter(klass, setter);
+            if (getter != null) {
+                return JSONObject.getKeyNameFromMethod(getter);
+            }
+        }
+        return JSONObject.getKeyNameFromMethod(setter);
+    }
+
+    /**
+     * @return the getter matching a setter, or null.
+     */
+    private static Method getter(Class<?> klass, Method setter) {
+        String property = setter.getName().substring(3);
+        Class<?> type = setter.getParameterTypes()[0];
+        for (String prefix : new String[] {"get", "is"}) {
+            try {
+                Method getter = klass.getMethod(prefix + property);
+                if (getter.getReturnType() == type && !Modifier.isStatic(getter.getModifiers())) {
+                    return getter;
+                }
+            } catch (NoSuchMethodException ignore) {
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> getterType(Class<?> klass, Method setter) {
+        Method getter = getter(klass, setter);
+        return getter == null ? null : getter.getReturnType();
+    }
+
+    /**
+     * Create a bean from a JSONObject.
+     *
+     * @param jo the object.
+     * @param klass the class of the bean.
+     * @return the bean.
+     * @throws JSONException if a value cannot be converted or set.
+     */
+    static <T> T bind(JSONObject jo, Class<T> klass) {
+        return klass.cast(fromObject(jo, klass, klass, null));
+    }
+
+    /**
+     * Create a bean from the object at the current <code>START_OBJECT</code>
+     * event of a parser, without building a JSONObject first. Members without
+     * a setter are skipped. The current event becomes the matching
+     * <code>END_OBJECT</code>.
+     *
+     * @param parser the parser.
+     * @param klass the class of the bean.
+     * @return the bean.
+     * @throws JSONException if the text is not valid, or a value cannot be converted or set.
+     */
+    static <T> T bind(JSONPullParser parser, Class<T> klass) {
+        return klass.cast(read(parser, klass, klass, null));
+    }
+
+    private static Object fromObject(JSONObject jo, Type type, Class<?> raw, String key) {
+        if (raw.isAssignableFrom(JSONObject.class)) {
+            return jo;
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            Map<Object, Object> map = newMap(raw, key);
+            Type keyType = typeArgument(type, Map.class, 0);
+            Type valueType = typeArgument(type, Map.class, 1);
+            for (Map.Entry<String, Object> entry : jo.entrySet()) {
+                map.put(scalar(entry.getKey(), rawClass(keyType), entry.getKey()),
+                        value(entry.getValue(), valueType, entry.getKey()));
+            }
+            return map;
+        }
+        if (isScalar(raw) || Collection.class.isAssignableFrom(raw) || raw.isArray()) {
+            throw JSONObject.wrongValueFormatException(key, raw.getSimpleName(), jo, null);
+        }
+        Plan plan = PLANS.get(raw);
+        Object bean = plan.newInstance();
+        for (Map.Entry<String, Object> entry : jo.entrySet()) {
+            Setter setter = plan.setters.get(entry.getKey());
+            if (setter != null) {
+                setter.set(bean, value(entry.getValue(), setter.type, setter.key));
+            }
+        }
+        return bean;
+    }
+
+    private static Object fromArray(JSONArray ja, Type type, Class<?> raw, String key) {
+        if (raw.isAssignableFrom(JSONArray.class)) {
+            return ja;
+        }
+        if (raw.isArray()) {
+            Class<?> component = raw.getComponentType();
+            Type componentType = type instanceof GenericArrayType
+                    ? ((GenericArrayType) type).getGenericComponentType() : component;
+            Object array = Array.newInstance(component, ja.length());
+            for (int i = 0; i < ja.length(); i++) {
+                Object element = value(ja.opt(i), componentType, key);
+                if (element != null || !component.isPrimitive()) {
+                    Array.set(array, i, element);
+                }
+            }
+            return array;
+        }
+        if (Collection.class.isAssignableFrom(raw) || raw == Iterable.class) {
+            Collection<Object> collection = newCollection(raw, key);
+            Type elementType = typeArgument(type, Collection.class, 0);
+            for (Object element : ja) {
+                collection.add(value(element, elementType, key));
+            }
+            return collection;
+        }
+        throw JSONObject.wrongValueFormatException(key, raw.getSimpleName(), ja, null);
+    }
+
+    private static Object value(Object value, Type type, String key) {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return null;
+        }
+        Class<?> raw = rawClass(type);
+        if (value instanceof JSONObject) {
+            return fromObject((JSONObject) value, type, raw, key);
+        }
+        if (value instanceof JSONArray) {
+            return fromArray((JSONArray) value, type, raw, key);
+        }
+        return scalar(value, raw, key);
+    }
+
+    private static Object read(JSONPullParser parser, Type type, Class<?> raw, String key) {
+        JSONPullParser.Event event = parser.getEvent();
+        if (event == JSONPullParser.Event.START_OBJECT) {
+            if (raw.isAssignableFrom(JSONObject.class)) {
+                return parser.readObject();
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                Map<Object, Object> map = newMap(raw, key);
+                Class<?> keyClass = rawClass(typeArgument(type, Map.class, 0));
+                Type valueType = typeArgument(type, Map.class, 1);
+                while (parser.next() == JSONPullParser.Event.KEY) {
+                    String name = parser.getString();
+                    parser.next();
+                    map.put(scalar(name, keyClass, name), readValue(parser, valueType, name));
+                }
+                return map;
+            }
+            if (isScalar(raw) || Collection.class.isAssignableFrom(raw) || raw.isArray()) {
+                throw JSONObject.wrongValueFormatException(key, raw.getSimpleName(), parser.readObject(), null);
+            }
+            Plan plan = PLANS.get(raw);
+            Object bean = plan.newInstance();
+            while (parser.next() == JSONPullParser.Event.KEY) {
+                Setter setter = plan.setters.get(parser.getString());
+                parser.next();
+                if (setter == null) {
+                    parser.skipChildren();
+                } else {
+                    setter.set(bean, readValue(parser, setter.type, setter.key));
+                }
+            }
+            return bean;
+        }
+        if (event == JSONPullParser.Event.START_ARRAY) {
+            if (raw.isArray() || Collection.class.isAssignableFrom(raw) || raw == Iterable.class) {
+                List<Object> list = new ArrayList<Object>();
+                Type elementType = raw.isArray()
+                        ? (type instanceof GenericArrayType
+                                ? ((GenericArrayType) type).getGenericComponentType() : raw.getComponentType())
+                        : typeArgument(type, Collection.class, 0);
+                while (parser.next() != JSONPullParser.Event.END_ARRAY) {
+                    list.add(readValue(parser, elementType, key));
+                }
+                if (raw.isArray()) {
+                    Class<?> component = raw.getComponentType();
+                    Object array = Array.newInstance(component, list.size());
+                    for (int i = 0; i < list.size(); i++) {
+                        if (list.get(i) != null || !component.isPrimitive()) {
+                            Array.set(array, i, list.get(i));
+                        }
+                    }
+                    return array;
+                }
+                Collection<Object> collection = newCollection(raw, key);
+                collection.addAll(list);
+                return collection;
+            }
+            return fromArray(parser.readArray(), type, raw, key);
+        }
+        return scalar(parser.getValue(), raw, key);
+    }
+
+    private static Object readValue(JSONPullParser parser, Type type, String key) {
+        if (parser.getEvent() == JSONPullParser.Event.VALUE_NULL) {
+            return null;
+        }
+        return read(parser, type, rawClass(type), key);
+    }
+
+    private static boolean isScalar(Class<?> raw) {
+        return raw.isPrimitive() || raw.isEnum() || raw == String.class || raw == CharSequence.class
+                || Number.class.isAssignableFrom(raw) || raw == Boolean.class || raw == Character.class;
+    }
+
+    /**
+     * Convert a string, number or boolean.
+     */
+    private static Object scalar(Object value, Class<?> raw, String key) {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return null;
+        }
+        if (raw.isInstance(value)) {
+            return value;
+        }
+        if (raw == String.class || raw == CharSequence.class) {
+            return value.toString();
+        }
+        if (raw == boolean.class || raw == Boolean.class) {
+            if (value instanceof Boolean) {
+                return value;
+            }
+            if (value instanceof String) {
+                if ("true".equalsIgnoreCase((String) value)) {
+                    return Boolean.TRUE;
+                }
+                if ("false".equalsIgnoreCase((String) value)) {
+                    return Boolean.FALSE;
+                }
+            }
+            throw JSONObject.wrongValueFormatException(key, "Boolean", value, null);
+        }
+        if (raw == char.class || raw == Character.class) {
+            if (value instanceof String && ((String) value).length() == 1) {
+                return Character.valueOf(((String) value).charAt(0));
+            }
+            throw JSONObject.wrongValueFormatException(key, "char", value, null);
+        }
+        if (raw.isEnum()) {
+            try {
+                return enumValue(raw, value.toString());
+            } catch (IllegalArgumentException e) {
+                throw JSONObject.wrongValueFormatException(key, "enum of type "
+                        + JSONObject.quote(raw.getSimpleName()), value, e);
+            }
+        }
+        if (raw == BigDecimal.class) {
+            BigDecimal number = JSONObject.objectToBigDecimal(value, null);
+            if (number == null || value instanceof Boolean) {
+                throw JSONObject.wrongValueFormatException(key, "BigDecimal", value, null);
+            }
+            return number;
+        }
+        if (raw == BigInteger.class) {
+            BigInteger number = JSONObject.objectToBigInteger(value, null);
+            if (number == null || value instanceof Boolean) {
+                throw JSONObject.wrongValueFormatException(key, "BigInteger", value, null);
+            }
+            return number;
+        }
+        if (raw.isPrimitive() || Number.class.isAssignableFrom(raw)) {
+            Number number;
+            if (value instanceof Number) {
+                number = (Number) value;
+            } else if (value instanceof String) {
+                try {
+                    number = JSONObject.stringToNumber((String) value);
+                } catch (NumberFormatException e) {
+                    throw JSONObject.wrongValueFormatException(key, raw.getSimpleName(), value, e);
+                }
+            } else {
+                throw JSONObject.wrongValueFormatException(key, raw.getSimpleName(), value, null);
+            }
+            if (raw == int.class || raw == Integer.class) {
+                return Integer.valueOf(number.intValue());
+            }
+            if (raw == long.class || raw == Long.class) {
+                return Long.valueOf(number.longValue());
+            }
+            if (raw == double.class || raw == Double.class) {
+                return Double.valueOf(number.doubleValue());
+            }
+            if (raw == float.class || raw == Float.class) {
+                return Float.valueOf(number.floatValue());
+            }
+            if (raw == short.class || raw == Short.class) {
+                return Short.valueOf(number.shortValue());
+            }
+            if (raw == byte.class || raw == Byte.class) {
+                return Byte.valueOf(number.byteValue());
+            }
+            if (raw.isInstance(number)) {
+                return number;
+            }
+        }
+        throw JSONObject.wrongValueFormatException(key, raw.getSimpleName(), value, null);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(Class<?> raw, String name) {
+        return Enum.valueOf((Class) raw, name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> newMap(Class<?> raw, String key) {
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            if (raw.isAssignableFrom(HashMap.class)) {
+                return new HashMap<Object, Object>();
+            }
+            if (raw == SortedMap.class || raw == NavigableMap.class) {
+                return new TreeMap<Object, Object>();
+            }
+            throw new JSONException("Unable to create a " + raw.getName() + " for " + JSONObject.quote(key));
+        }
+        return (Map<Object, Object>) PLANS.get(raw).newInstance();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> raw, String key) {
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            if (raw.isAssignableFrom(ArrayList.class)) {
+                return new ArrayList<Object>();
+            }
+            if (raw.isAssignableFrom(LinkedHashSet.class)) {
+                return new LinkedHashSet<Object>();
+            }
+            if (raw == SortedSet.class || raw == NavigableSet.class) {
+                return new TreeSet<Object>();
+            }
+            if (Queue.class.isAssignableFrom(raw) && raw.isAssignableFrom(ArrayDeque.class)) {
+                return new ArrayDeque<Object>();
+            }
+            throw new JSONException("Unable to create a " + raw.getName() + " for " + JSONObject.quote(key));
+        }
+        return (Collection<Object>) PLANS.get(raw).newInstance();
+    }
+
+    /**
+     * The class of a type: the raw type of a parameterized type, the upper
+     * bound of a wildcard or type variable.
+     */
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0)
+                    .getClass();
+        }
+        if (type instanceof WildcardType) {
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * The type argument of a Map or Collection type, or Object if the type
+     * is raw or a subclass that does not pass on the argument.
+     */
+    private static Type typeArgument(Type type, Class<?> owner, int index) {
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            if (parameterized.getRawType() == owner || (owner == Collection.class
+                    && parameterized.getActualTypeArguments().length == 1)
+                    || (owner == Map.class && parameterized.getActualTypeArguments().length == 2)) {
+                return parameterized.getActualTypeArguments()[index];
+            }
+        }
+        return Object.class;
+    }
+}
@@ -0,0 +1,188 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes Java values as JSON text the way {@link JSONObject#wrap(Object)}
+ * followed by <code>toString()</code> would, without building the JSONObject
+ * and JSONArray tree: beans are read through the cached getters of
+ * {@link BeanAccessors}, and Maps, Collections and arrays are walked
+ * directly. The members of a bean are written in the order of its getters.
+ * <p>
+ * Like {@link JSONObject#JSONObject(Object)}, a bean that contains itself,
+ * directly or through the beans, Maps, Collections and arrays below it, is
+ * reported with a JSONException instead of being written forever.
+ */
+final class BeanWriter {
+
+    private final Writer writer;
+
+    /** The beans being written, from the root to the current one. */
+    private final Set<Object> path = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    BeanWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Write a value and everything it contains.
+     *
+     * @param value the value.
+     * @throws IOException if the writer fails.
+     */
+    void write(Object value) throws IOException {
+        this.writeElement(value, "");
+    }
+
+    /**
+     * Write a value.
+     *
+     * @param value the value.
+     * @param key the key of the value in its bean, for error messages.
+     */
+    private void write(Object value, String key) throws IOException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            this.writer.write("null");
+        } else if (isLeaf(value)) {
+            JSONObject.writeValue(this.writer, value, 0, 0);
+        } else if (value instanceof Collection) {
+            this.writer.write('[');
+            boolean comma = false;
+            for (Object element : (Collection<?>) value) {
+                if (comma) {
+                    this.writer.write(',');
+                }
+                this.writeElement(element, key);
+                comma = true;
+            }
+            this.writer.write(']');
+        } else if (value.getClass().isArray()) {
+            this.writer.write('[');
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    this.writer.write(',');
+                }
+                this.writeElement(Array.get(value, i), key);
+            }
+            this.writer.write(']');
+        } else if (value instanceof Map) {
+            this.writeMap((Map<?, ?>) value, key);
+        } else if (isSystemClass(value.getClass())) {
+            JSONObject.quote(value.toString(), this.writer);
+        } else {
+            this.writeBean(value, key);
+        }
+    }
+
+    /**
+     * Write a value that may contain the beans that contain it.
+     */
+    private void writeElement(Object element, String key) throws IOException {
+        if (element != null && !isLeaf(element) && !JSONObject.NULL.equals(element)) {
+            this.enter(element, key);
+            this.write(element, key);
+            this.path.remove(element);
+        } else {
+            this.write(element, key);
+        }
+    }
+
+    private void writeMap(Map<?, ?> map, String key) throws IOException {
+        this.writer.write('{');
+        boolean comma = false;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            JSONObject.testValidity(value);
+            if (comma) {
+                this.writer.write(',');
+            }
+            String name = String.valueOf(entry.getKey());
+            JSONObject.quote(name, this.writer);
+            this.writer.write(':');
+            this.writeElement(value, name);
+            comma = true;
+        }
+        this.writer.write('}');
+    }
+
+    private void writeBean(Object bean, String key) throws IOException {
+        this.writer.write('{');
+        boolean comma = false;
+        for (BeanAccessors.Accessor accessor : BeanAccessors.of(bean.getClass())) {
+            final Object result;
+            try {
+                result = accessor.get(bean);
+            } catch (Throwable ignore) {
+                // left out, as JSONObject(Object) does
+                continue;
+            }
+            if (result == null) {
+                continue;
+            }
+            JSONObject.testValidity(result);
+            if (comma) {
+                this.writer.write(',');
+            }
+            JSONObject.quote(accessor.key, this.writer);
+            this.writer.write(':');
+            this.writeElement(result, accessor.key);
+            comma = true;
+            if (result instanceof Closeable) {
+                try {
+                    ((Closeable) result).close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+        this.writer.write('}');
+    }
+
+    /**
+     * Record a container or bean on the path, failing if it is already there.
+     */
+    private void enter(Object value, String key) {
+        if (!this.path.add(value)) {
+            throw JSONObject.recursivelyDefinedObjectException(key);
+        }
+    }
+
+    /**
+     * @return true for the values that wrap() keeps as they are.
+     */
+    private static boolean isLeaf(Object value) {
+        return value instanceof JSONObject || value instanceof JSONArray
+                || value instanceof JSONString
+                || value instanceof Byte || value instanceof Character
+                || value instanceof Short || value instanceof Integer
+                || value instanceof Long || value instanceof Boolean
+                || value instanceof Float || value instanceof Double
+                || value instanceof String || value instanceof BigInteger
+                || value instanceof BigDecimal || value instanceof Enum;
+    }
+
+    private static boolean isSystemClass(Class<?> klass) {
+        Package objectPackage = klass.getPackage();
+        String objectPackageName = objectPackage != null ? objectPackage.getName() : "";
+        return objectPackageName.startsWith("java.")
+                || objectPackageName.startsWith("javax.")
+                || klass.getClassLoader() == null;
+    }
+}
@@ -0,0 +1,297 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The map of a JSONObject parsed with
+ * {@link JSONParserConfiguration#withCompactObjects(boolean)}. The keys and
+ * values are kept side by side in one array, found by linear probing from
+ * the hash of the key, so an entry costs two array slots instead of a
+ * HashMap node. A removed entry leaves a marker that is dropped when the
+ * table is rebuilt. Like HashMap, the map does not keep the order of its
+ * keys; it does not accept null keys.
+ */
+final class CompactMap extends AbstractMap<String, Object> {
+
+    /** The key of a slot whose entry has been removed. */
+    private static final Object REMOVED = new Object();
+
+    /** The smallest number of slots. */
+    private static final int MIN_CAPACITY = 8;
+
+    /** The key of each slot at 2 * i and its value at 2 * i + 1. */
+    private Object[] table;
+
+    /** The number of entries. */
+    private int size;
+
+    /** The number of slots that hold an entry or a removed marker. */
+    private int used;
+
+    /** The number of changes to the keys, for the iterators. */
+    private int modCount;
+
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    CompactMap() {
+        this(MIN_CAPACITY * 3 / 4);
+    }
+
+    /**
+     * @param expectedSize the number of entries to make room for.
+     */
+    CompactMap(int expectedSize) {
+        this.table = new Object[2 * capacityFor(expectedSize)];
+    }
+
+    /**
+     * @return the number of slots, a power of two, that holds the entries
+     *         within the load factor of 3/4.
+     */
+    private static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the slot of the key, or -1.
+     */
+    private int find(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        Object[] t = this.table;
+        int mask = (t.length >> 1) - 1;
+        for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+            Object k = t[i << 1];
+            if (k == null) {
+                return -1;
+            }
+            if (k == key || (k != REMOVED && k.equals(key))) {
+                return i;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.find(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = this.find(key);
+        return i < 0 ? null : this.table[(i << 1) + 1];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (key == null) {
+            throw new NullPointerException("Null key.");
+        }
+        Object[] t = this.table;
+        int mask = (t.length >> 1) - 1;
+        int free = -1;
+        int i = hash(key) & mask;
+        for (;; i = (i + 1) & mask) {
+            Object k = t[i << 1];
+            if (k == null) {
+                break;
+            }
+            if (k == REMOVED) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (k == key || k.equals(key)) {
+                Object previous = t[(i << 1) + 1];
+                t[(i << 1) + 1] = value;
+                return previous;
+            }
+        }
+        if (free >= 0) {
+            i = free;
+        } else if ((this.used + 1) * 4 > (t.length >> 1) * 3) {
+            this.rebuild(capacityFor(this.size + 1));
+            return this.put(key, value);
+        } else {
+            this.used++;
+        }
+        t[i << 1] = key;
+        t[(i << 1) + 1] = value;
+        this.size++;
+        this.modCount++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = this.find(key);
+        if (i < 0) {
+            return null;
+        }
+        Object previous = this.table[(i << 1) + 1];
+        this.removeAt(i);
+        return previous;
+    }
+
+    private void removeAt(int i) {
+        this.table[i << 1] = REMOVED;
+        this.table[(i << 1) + 1] = null;
+        this.size--;
+        this.modCount++;
+    }
+
+    @Override
+    public void clear() {
+        if (this.used > 0) {
+            this.table = new Object[2 * MIN_CAPACITY];
+            this.size = 0;
+            this.used = 0;
+            this.modCount++;
+        }
+    }
+
+    /**
+     * Move the entries into a new table, dropping the removed markers.
+     */
+    private void rebuild(int capacity) {
+        Object[] old = this.table;
+        Object[] t = new Object[2 * capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < old.length; j += 2) {
+            Object k = old[j];
+            if (k != null && k != REMOVED) {
+                int i = hash(k) & mask;
+                while (t[i << 1] != null) {
+                    i = (i + 1) & mask;
+                }
+                t[i << 1] = k;
+                t[(i << 1) + 1] = old[j + 1];
+            }
+        }
+        this.table = t;
+        this.used = this.size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        Set<Map.Entry<String, Object>> es = this.entrySet;
+        if (es == null) {
+            es = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CompactMap.this.size;
+                }
+
+                @Override
+                public void clear() {
+                    CompactMap.this.clear();
+                }
+            };
+            this.entrySet = es;
+        }
+        return es;
+    }
+
+    /**
+     * An entry whose setValue writes through to the map.
+     */
+    private final class Entry extends AbstractMap.SimpleEntry<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(String key, Object value) {
+            super(key, value);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            CompactMap.this.put(this.getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = CompactMap.this.modCount;
+
+        EntryIterator() {
+            this.advance(0);
+        }
+
+        private void advance(int from) {
+            Object[] t = CompactMap.this.table;
+            int i = from;
+            while (i < t.length >> 1 && (t[i << 1] == null || t[i << 1] == REMOVED)) {
+                i++;
+            }
+            this.next = i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < CompactMap.this.table.length >> 1;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (CompactMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] t = CompactMap.this.table;
+            int i = this.next;
+            this.last = i;
+            this.advance(i + 1);
+            return new Entry((String) t[i << 1], t[(i << 1) + 1]);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            if (CompactMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            CompactMap.this.removeAt(this.last);
+            this.last = -1;
+            this.expectedModCount = CompactMap.this.modCount;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+/**
+ * The sizes of the objects and arrays met by the parsers, by their path in
+ * the document, so that the next object or array at the same path starts
+ * with room for as many entries instead of growing and rehashing as they
+ * arrive. A path is a hash of the keys leading to the value; the elements of
+ * an array all share the path of the array.
+ * <p>
+ * The hint for a path is the smaller of the sizes of the last two containers
+ * met there, capped at {@link #MAX_HINT}, so that one large container does
+ * not make the next ones at its path take more room than they need. A slot
+ * keeps the path it was recorded for, and a container whose path only shares
+ * the slot gets no hint.
+ * <p>
+ * The table is shared by every parser using the same configuration, so the
+ * sizes learned from one document are used for the next documents of the
+ * same schema. It is safe for concurrent use without locking: each slot is a
+ * single long holding the path and both sizes, and a lost race only makes a
+ * hint less accurate.
+ */
+final class ContainerSizeHints {
+
+    /** The number of slots of each table. */
+    private static final int SLOTS = 1 << 12;
+
+    /** The largest size that is used as a hint. */
+    static final int MAX_HINT = 256;
+
+    /**
+     * For each slot of objects: the path in the high 32 bits, then the size
+     * of the container before the last one and the size of the last one, plus
+     * one, in 16 bits each; 0 if unknown.
+     */
+    private final long[] objects = new long[SLOTS];
+
+    /** The same for the arrays. */
+    private final long[] arrays = new long[SLOTS];
+
+    /**
+     * @param path the path of an object.
+     * @param key a key of the object.
+     * @return the path of the value of the key.
+     */
+    static int member(int path, String key) {
+        return 31 * path + key.hashCode();
+    }
+
+    /**
+     * @param path the path of an array.
+     * @return the path of the elements of the array.
+     */
+    static int element(int path) {
+        return 31 * path + 1;
+    }
+
+    private static int slot(int path) {
+        return (path ^ (path >>> 16)) & (SLOTS - 1);
+    }
+
+    /**
+     * The expected size of the object that a tokener is about to read.
+     *
+     * @param config the configuration of the parser, or null.
+     * @param x the tokener.
+     * @return the expected number of entries, or -1 if unknown.
+     */
+    static int objectSize(JSONParserConfiguration config, JSONTokener x) {
+        if (config == null || config.sizeHints == null) {
+            return -1;
+        }
+        return hint(config.sizeHints.objects, x.containerPath);
+    }
+
+    /**
+     * The expected size of the array that a tokener is about to read.
+     *
+     * @param config the configuration of the parser, or null.
+     * @param x the tokener.
+     * @return the expected number of elements, or -1 if unknown.
+     */
+    static int arraySize(JSONParserConfiguration config, JSONTokener x) {
+        if (config == null || config.sizeHints == null) {
+            return -1;
+        }
+        return hint(config.sizeHints.arrays, x.containerPath);
+    }
+
+    void recordObject(int path, int size) {
+        record(this.objects, path, size);
+    }
+
+    void recordArray(int path, int size) {
+        record(this.arrays, path, size);
+    }
+
+    private static int hint(long[] table, int path) {
+        long entry = table[slot(path)];
+        if (entry == 0 || (int) (entry >>> 32) != path) {
+            return -1;
+        }
+        int previous = (int) (entry >>> 16) & 0xFFFF;
+        int last = (int) entry & 0xFFFF;
+        return (previous == 0 ? last : Math.min(previous, last)) - 1;
+    }
+
+    private static void record(long[] table, int path, int size) {
+        int slot = slot(path);
+        long entry = table[slot];
+        long previous = entry != 0 && (int) (entry >>> 32) == path ? entry & 0xFFFF : 0;
+        table[slot] = ((long) path << 32) | (previous << 16) | (Math.min(size, MAX_HINT) + 1);
+    }
+}
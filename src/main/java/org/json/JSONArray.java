@@ -5,15 +5,18 @@ Public Domain.
  */
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -65,7 +68,7 @@ public class JSONArray implements Iterable<Object> {
     /**
      * The arrayList where the JSONArray's properties are kept.
      */
-    private final ArrayList<Object> myArrayList;
+    private final List<Object> myArrayList;
 
     /**
      * Construct an empty JSONArray.
@@ -74,6 +77,23 @@ public class JSONArray implements Iterable<Object> {
         this.myArrayList = new ArrayList<Object>();
     }
 
+    /**
+     * Construct an empty JSONArray for the parser, which keeps numbers in
+     * primitive arrays if the configuration asks for
+     * {@link JSONParserConfiguration#withCompactNumericArrays(boolean) compact numeric arrays}.
+     *
+     * @param jsonParserConfiguration the configuration of the parser
+     * @param initialCapacity the initial capacity of the JSONArray, or -1 for the default capacity
+     */
+    JSONArray(JSONParserConfiguration jsonParserConfiguration, int initialCapacity) {
+        int capacity = initialCapacity < 0 ? 10 : initialCapacity;
+        if (jsonParserConfiguration != null && jsonParserConfiguration.isCompactNumericArrays()) {
+            this.myArrayList = new NumericArrayList(capacity);
+        } else {
+            this.myArrayList = new ArrayList<Object>(capacity);
+        }
+    }
+
     /**
      * Construct a JSONArray from a JSONTokener.
      *
@@ -94,7 +114,9 @@ public class JSONArray implements Iterable<Object> {
      * @throws JSONException If a syntax error occurs during the construction of the JSONArray.
      */
     public JSONArray(JSONTokener x, JSONParserConfiguration jsonParserConfiguration) throws JSONException {
-        this();
+        this(jsonParserConfiguration, ContainerSizeHints.arraySize(jsonParserConfiguration, x));
+        final ContainerSizeHints hints = jsonParserConfiguration.sizeHints;
+        final int path = x.containerPath;
 
         boolean isInitial = x.getPrevious() == 0;
         if (x.nextClean() != '[') {
@@ -114,6 +136,9 @@ public class JSONArray implements Iterable<Object> {
                     this.myArrayList.add(JSONObject.NULL);
                 } else {
                     x.back();
+                    if (hints != null) {
+                        x.containerPath = ContainerSizeHints.element(path);
+                    }
                     this.myArrayList.add(x.nextValue());
                 }
                 switch (x.nextClean()) {
@@ -131,6 +156,9 @@ public class JSONArray implements Iterable<Object> {
                         if (jsonParserConfiguration.isStrictMode()) {
                             throw x.syntaxError("Strict mode error: Expected another array element");
                         }
+                        if (hints != null) {
+                            hints.recordArray(path, this.myArrayList.size());
+                        }
                         return;
                     }
                     if (nextChar == ',') {
@@ -138,6 +166,9 @@ public class JSONArray implements Iterable<Object> {
                         if (jsonParserConfiguration.isStrictMode()) {
                             throw x.syntaxError("Strict mode error: Expected a valid array element");
                         }
+                        if (hints != null) {
+                            hints.recordArray(path, this.myArrayList.size());
+                        }
                         return;
                     }
                     x.back();
@@ -147,6 +178,9 @@ public class JSONArray implements Iterable<Object> {
                             x.nextClean() != 0) {
                         throw x.syntaxError("Strict mode error: Unparsed characters found at end of input text");
                     }
+                    if (hints != null) {
+                        hints.recordArray(path, this.myArrayList.size());
+                    }
                     return;
                 default:
                     throw x.syntaxError("Expected a ',' or ']'");
@@ -156,6 +190,9 @@ public class JSONArray implements Iterable<Object> {
             if (isInitial && jsonParserConfiguration.isStrictMode() && x.nextClean() != 0) {
                 throw x.syntaxError("Strict mode error: Unparsed characters found at end of input text");
             }
+            if (hints != null) {
+                hints.recordArray(path, 0);
+            }
         }
     }
 
@@ -188,6 +225,57 @@ public class JSONArray implements Iterable<Object> {
         this(new JSONTokener(source, jsonParserConfiguration), jsonParserConfiguration);
     }
 
+    /**
+     * Parse a JSON text that is a large array of independent elements, such
+     * as records, using the common ForkJoinPool.
+     *
+     * @param source
+     *            A string that begins with <code>[</code>&nbsp;<small>(left
+     *            bracket)</small> and ends with <code>]</code>
+     *            &nbsp;<small>(right bracket)</small>.
+     * @return the array, equal to <code>new JSONArray(source)</code>.
+     * @throws JSONException
+     *             If there is a syntax error.
+     * @see #parseParallel(char[], int, int, JSONParserConfiguration, ForkJoinPool)
+     */
+    public static JSONArray parseParallel(String source) throws JSONException {
+        char[] chars = source.toCharArray();
+        return parseParallel(chars, 0, chars.length, new JSONParserConfiguration(),
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parse a JSON text that is a large array of independent elements, such
+     * as records, on several threads. A first pass over the characters finds
+     * where each top level element starts and ends; the elements are then
+     * parsed by tasks of the pool and assembled in order. The parallelism is
+     * that of the pool, for example <code>new ForkJoinPool(4)</code>.
+     * <p>
+     * The result is the same as that of
+     * {@link #JSONArray(JSONTokener, JSONParserConfiguration)}. A text that is
+     * not a plain array of elements separated by single commas, or that has an
+     * error, is parsed again on the calling thread so the exception reports
+     * its position in the whole text.
+     *
+     * @param source the characters of the JSON text.
+     * @param offset the index of the first character of the text.
+     * @param length the number of characters of the text.
+     * @param jsonParserConfiguration the parser config object, shared by the tasks.
+     * @param pool the pool that runs the tasks.
+     * @return the array.
+     * @throws JSONException
+     *             If there is a syntax error.
+     * @throws IndexOutOfBoundsException if the range is not within the array.
+     */
+    public static JSONArray parseParallel(char[] source, int offset, int length,
+            JSONParserConfiguration jsonParserConfiguration, ForkJoinPool pool) throws JSONException {
+        if (offset < 0 || length < 0 || offset > source.length - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length
+                    + ", array length " + source.length);
+        }
+        return new ParallelArrayParser(source, offset, length, jsonParserConfiguration, pool).parse();
+    }
+
     /**
      * Construct a JSONArray from a Collection.
      *
@@ -258,7 +346,9 @@ public class JSONArray implements Iterable<Object> {
         } else {
             // shallow copy directly the internal array lists as any wrapping
             // should have been done already in the original JSONArray
-            this.myArrayList = new ArrayList<Object>(array.myArrayList);
+            this.myArrayList = array.myArrayList instanceof NumericArrayList
+                    ? new NumericArrayList((NumericArrayList) array.myArrayList)
+                    : new ArrayList<Object>(array.myArrayList);
         }
     }
 
@@ -1469,7 +1559,7 @@ public class JSONArray implements Iterable<Object> {
         }
         // if we are inserting past the length, we want to grow the array all at once
         // instead of incrementally.
-        this.myArrayList.ensureCapacity(index + 1);
+        this.ensureCapacity(index + 1);
         while (index != this.length()) {
             // we don't need to test validity of NULL objects
             this.myArrayList.add(JSONObject.NULL);
@@ -1836,6 +1926,85 @@ public class JSONArray implements Iterable<Object> {
         }
     }
 
+    /**
+     * Write the contents of the JSONArray as UTF-8 encoded JSON text to a
+     * stream. For compactness, no whitespace is added. The characters are
+     * encoded directly into a byte buffer that is handed to the stream as it
+     * fills, without an intermediate String or OutputStreamWriter. The stream
+     * is neither flushed nor closed.
+     * <p><b>
+     * Warning: This method assumes that the data structure is acyclical.
+     * </b>
+     *
+     * @param out the stream that receives the bytes.
+     * @return The stream.
+     * @throws JSONException if a called function fails or unable to write
+     */
+    public OutputStream writeTo(OutputStream out) throws JSONException {
+        return this.writeTo(out, 0);
+    }
+
+    /**
+     * Write the contents of the JSONArray as UTF-8 encoded JSON text to a
+     * stream, indented as by {@link #write(Writer, int, int)}. The stream is
+     * neither flushed nor closed.
+     *
+     * @param out the stream that receives the bytes.
+     * @param indentFactor
+     *            The number of spaces to add to each level of indentation.
+     * @return The stream.
+     * @throws JSONException if a called function fails or unable to write
+     */
+    public OutputStream writeTo(OutputStream out, int indentFactor) throws JSONException {
+        this.writeTo(new Utf8Writer(out), indentFactor);
+        return out;
+    }
+
+    /**
+     * Write the contents of the JSONArray as UTF-8 encoded JSON text into a
+     * ByteBuffer, from its position. For compactness, no whitespace is added.
+     *
+     * @param buffer the buffer that receives the bytes; its position is
+     *            advanced past them.
+     * @return The buffer.
+     * @throws JSONException if a called function fails
+     * @throws java.nio.BufferOverflowException if the text does not fit in the
+     *             remaining space of the buffer; part of it may have been written.
+     */
+    public ByteBuffer writeTo(ByteBuffer buffer) throws JSONException {
+        return this.writeTo(buffer, 0);
+    }
+
+    /**
+     * Write the contents of the JSONArray as UTF-8 encoded JSON text into a
+     * ByteBuffer, from its position, indented as by
+     * {@link #write(Writer, int, int)}.
+     *
+     * @param buffer the buffer that receives the bytes; its position is
+     *            advanced past them.
+     * @param indentFactor
+     *            The number of spaces to add to each level of indentation.
+     * @return The buffer.
+     * @throws JSONException if a called function fails
+     * @throws java.nio.BufferOverflowException if the text does not fit in the
+     *             remaining space of the buffer; part of it may have been written.
+     */
+    public ByteBuffer writeTo(ByteBuffer buffer, int indentFactor) throws JSONException {
+        this.writeTo(new Utf8Writer(buffer), indentFactor);
+        return buffer;
+    }
+
+    private void writeTo(Utf8Writer writer, int indentFactor) throws JSONException {
+        try {
+            this.write(writer, indentFactor, 0);
+            writer.finish();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        } catch (JSONException e) {
+            throw Utf8Writer.unwrapOverflow(e);
+        }
+    }
+
     /**
      * Returns a java.util.List containing all of the elements in this array.
      * If an element in the array is a JSONArray or JSONObject it will also
@@ -1861,6 +2030,81 @@ public class JSONArray implements Iterable<Object> {
         return results;
     }
 
+    /**
+     * Returns the elements of this array as ints, each converted as by
+     * {@link #getInt(int)}. An array parsed with
+     * {@link JSONParserConfiguration#withCompactNumericArrays(boolean) compact numeric arrays}
+     * whose elements are all ints is copied without boxing.
+     *
+     * @return the ints
+     * @throws JSONException if an element is not a number
+     */
+    public int[] toIntArray() throws JSONException {
+        if (this.myArrayList instanceof NumericArrayList) {
+            int[] values = ((NumericArrayList) this.myArrayList).intValues();
+            if (values != null) {
+                return values;
+            }
+        }
+        int[] values = new int[this.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.getInt(i);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the elements of this array as longs, each converted as by
+     * {@link #getLong(int)}. An array parsed with
+     * {@link JSONParserConfiguration#withCompactNumericArrays(boolean) compact numeric arrays}
+     * whose elements are all integers is copied without boxing.
+     *
+     * @return the longs
+     * @throws JSONException if an element is not a number
+     */
+    public long[] toLongArray() throws JSONException {
+        if (this.myArrayList instanceof NumericArrayList) {
+            long[] values = ((NumericArrayList) this.myArrayList).longValues();
+            if (values != null) {
+                return values;
+            }
+        }
+        long[] values = new long[this.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.getLong(i);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the elements of this array as doubles, each converted as by
+     * {@link #getDouble(int)}. An array parsed with
+     * {@link JSONParserConfiguration#withCompactNumericArrays(boolean) compact numeric arrays}
+     * whose elements are all numbers of one kind is copied without boxing.
+     *
+     * @return the doubles
+     * @throws JSONException if an element is not a number
+     */
+    public double[] toDoubleArray() throws JSONException {
+        if (this.myArrayList instanceof NumericArrayList) {
+            double[] values = ((NumericArrayList) this.myArrayList).doubleValues();
+            if (values != null) {
+                return values;
+            }
+        }
+        double[] values = new double[this.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.getDouble(i);
+        }
+        return values;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (this.myArrayList instanceof ArrayList) {
+            ((ArrayList<Object>) this.myArrayList).ensureCapacity(capacity);
+        }
+    }
+
     /**
      * Check if JSONArray is empty.
      *
@@ -1882,7 +2126,7 @@ public class JSONArray implements Iterable<Object> {
      *            Variable for tracking the count of nested object creations.
      */
     private void addAll(Collection<?> collection, boolean wrap, int recursionDepth, JSONParserConfiguration jsonParserConfiguration) {
-        this.myArrayList.ensureCapacity(this.myArrayList.size() + collection.size());
+        this.ensureCapacity(this.myArrayList.size() + collection.size());
         if (wrap) {
             for (Object o: collection){
                 this.put(JSONObject.wrap(o, recursionDepth + 1, jsonParserConfiguration));
@@ -1970,7 +2214,7 @@ public class JSONArray implements Iterable<Object> {
     private void addAll(Object array, boolean wrap, int recursionDepth, JSONParserConfiguration jsonParserConfiguration) throws JSONException {
         if (array.getClass().isArray()) {
             int length = Array.getLength(array);
-            this.myArrayList.ensureCapacity(this.myArrayList.size() + length);
+            this.ensureCapacity(this.myArrayList.size() + length);
             if (wrap) {
                 for (int i = 0; i < length; i += 1) {
                     this.put(JSONObject.wrap(Array.get(array, i), recursionDepth + 1, jsonParserConfiguration));
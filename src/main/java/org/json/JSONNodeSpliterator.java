@@ -0,0 +1,91 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import org.json.JSONObject.JSONNode;
+import org.json.JSONPullParser.Event;
+
+/**
+ * The spliterator behind {@link JSONObject#toStream(java.io.Reader)}. It pulls
+ * events from a {@link JSONPullParser} only as far as needed to produce the
+ * next leaf, so a short-circuiting stream stops reading the text early.
+ */
+final class JSONNodeSpliterator extends Spliterators.AbstractSpliterator<JSONNode> {
+
+    private final JSONPullParser parser;
+
+    /** The paths of the open containers, the innermost last. */
+    private String[] paths = new String[16];
+
+    /** The next index of each open array, or -1 for an open object. */
+    private int[] indexes = new int[16];
+
+    /** The number of open containers. */
+    private int depth;
+
+    /** The key of the member whose value comes next. */
+    private String key;
+
+    JSONNodeSpliterator(JSONPullParser parser) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.parser = parser;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super JSONNode> action) {
+        while (this.parser.hasNext()) {
+            Event event = this.parser.next();
+            switch (event) {
+            case KEY:
+                this.key = this.parser.getString();
+                break;
+            case START_OBJECT:
+                this.push(this.path(), -1);
+                break;
+            case START_ARRAY:
+                this.push(this.path(), 0);
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                this.depth--;
+                break;
+            default:
+                action.accept(new JSONNode(this.path(), this.parser.getValue()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The path of the value that starts now, with the same conventions as
+     * {@link JSONObject#toStream()}: <code>/key</code> for a member and
+     * <code>[index]</code> for an element.
+     */
+    private String path() {
+        if (this.depth == 0) {
+            return "";
+        }
+        int top = this.depth - 1;
+        if (this.indexes[top] < 0) {
+            return this.paths[top] + "/" + this.key;
+        }
+        return this.paths[top] + "[" + this.indexes[top]++ + "]";
+    }
+
+    private void push(String path, int index) {
+        if (this.depth == this.paths.length) {
+            this.paths = Arrays.copyOf(this.paths, this.depth * 2);
+            this.indexes = Arrays.copyOf(this.indexes, this.depth * 2);
+        }
+        this.paths[this.depth] = path;
+        this.indexes[this.depth++] = index;
+    }
+}
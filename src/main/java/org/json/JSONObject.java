@@ -6,19 +6,20 @@ Public Domain.
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A JSONObject is an unordered collection of name/value pairs. Its external
@@ -212,9 +213,11 @@ public class JSONObject {
      *             duplicated key.
      */
     public JSONObject(JSONTokener x, JSONParserConfiguration jsonParserConfiguration) throws JSONException {
-        this();
+        this(jsonParserConfiguration, ContainerSizeHints.objectSize(jsonParserConfiguration, x));
         char c;
         String key;
+        final ContainerSizeHints hints = jsonParserConfiguration.sizeHints;
+        final int path = x.containerPath;
 
         boolean isInitial = x.getPrevious() == 0;
 
@@ -230,9 +233,12 @@ public class JSONObject {
                 if (isInitial && jsonParserConfiguration.isStrictMode() && x.nextClean() != 0) {
                     throw x.syntaxError("Strict mode error: Unparsed characters found at end of input text");
                 }
+                if (hints != null) {
+                    hints.recordObject(path, this.map.size());
+                }
                 return;
             default:
-                key = x.nextSimpleValue(c).toString();
+                key = x.nextKey(c);
             }
 
             // The key is followed by ':'.
@@ -251,6 +257,9 @@ public class JSONObject {
                     throw x.syntaxError("Duplicate key \"" + key + "\"");
                 }
 
+                if (hints != null) {
+                    x.containerPath = ContainerSizeHints.member(path, key);
+                }
                 Object value = x.nextValue();
                 // Only add value if non-null
                 if (value != null) {
@@ -272,6 +281,9 @@ public class JSONObject {
                     if (jsonParserConfiguration.isStrictMode()) {
                         throw x.syntaxError("Strict mode error: Expected another object element");
                     }
+                    if (hints != null) {
+                        hints.recordObject(path, this.map.size());
+                    }
                     return;
                 }
                 if (x.end()) {
@@ -283,6 +295,9 @@ public class JSONObject {
                 if (isInitial && jsonParserConfiguration.isStrictMode() && x.nextClean() != 0) {
                     throw x.syntaxError("Strict mode error: Unparsed characters found at end of input text");
                 }
+                if (hints != null) {
+                    hints.recordObject(path, this.map.size());
+                }
                 return;
             default:
                 throw x.syntaxError("Expected a ',' or '}'");
@@ -515,16 +530,33 @@ public class JSONObject {
     }
 
     /**
-     * Constructor to specify an initial capacity of the internal map. Useful for library
-     * internal calls where we know, or at least can best guess, how big this JSONObject
-     * will be.
+     * Constructor to specify an initial capacity of the internal map. Useful when the
+     * caller knows, or at least can best guess, how big this JSONObject will be.
      *
      * @param initialCapacity initial capacity of the internal map.
      */
-    protected JSONObject(int initialCapacity){
+    public JSONObject(int initialCapacity){
         this.map = new HashMap<String, Object>(initialCapacity);
     }
 
+    /**
+     * Construct an empty JSONObject for the parser, which keeps its entries
+     * in a compact map if the configuration asks for
+     * {@link JSONParserConfiguration#withCompactObjects(boolean) compact objects}.
+     *
+     * @param jsonParserConfiguration the configuration of the parser
+     * @param expectedSize the number of entries to make room for, or -1 for the default capacity.
+     */
+    JSONObject(JSONParserConfiguration jsonParserConfiguration, int expectedSize) {
+        if (jsonParserConfiguration != null && jsonParserConfiguration.isCompactObjects()) {
+            this.map = expectedSize < 0 ? new CompactMap() : new CompactMap(expectedSize);
+        } else if (expectedSize < 0) {
+            this.map = new HashMap<String, Object>();
+        } else {
+            this.map = new HashMap<String, Object>((int) (expectedSize / 0.75f) + 1);
+        }
+    }
+
     /**
      * Accumulate values under a key. It is similar to the put method except
      * that if there is already an object stored under the key then a JSONArray
@@ -1771,64 +1803,49 @@ public class JSONObject {
     }
 
     private void populateMap(Object bean, Set<Object> objectsRecord) {
-        Class<?> klass = bean.getClass();
-
-        // If klass is a System class then set includeSuperClass to false.
-
-        boolean includeSuperClass = klass.getClassLoader() != null;
-
-        Method[] methods = includeSuperClass ? klass.getMethods() : klass.getDeclaredMethods();
-        for (final Method method : methods) {
-            final int modifiers = method.getModifiers();
-            if (Modifier.isPublic(modifiers)
-                    && !Modifier.isStatic(modifiers)
-                    && method.getParameterTypes().length == 0
-                    && !method.isBridge()
-                    && method.getReturnType() != Void.TYPE
-                    && isValidMethodName(method.getName())) {
-                final String key = getKeyNameFromMethod(method);
-                if (key != null && !key.isEmpty()) {
+        for (final BeanAccessors.Accessor accessor : BeanAccessors.of(bean.getClass())) {
+            final String key = accessor.key;
+            final Object result;
+            try {
+                result = accessor.get(bean);
+            } catch (Throwable ignore) {
+                // a getter that cannot be called or fails is left out,
+                // as it was when the getters were invoked reflectively
+                continue;
+            }
+            if (result != null) {
+                // check cyclic dependency and throw error if needed
+                // the wrap and populateMap combination method is
+                // itself DFS recursive
+                if (objectsRecord.contains(result)) {
+                    throw recursivelyDefinedObjectException(key);
+                }
+
+                objectsRecord.add(result);
+
+                testValidity(result);
+                this.map.put(key, wrap(result, objectsRecord));
+
+                objectsRecord.remove(result);
+
+                // we don't use the result anywhere outside of wrap
+                // if it's a resource we should be sure to close it
+                // after calling toString
+                if (result instanceof Closeable) {
                     try {
-                        final Object result = method.invoke(bean);
-                        if (result != null) {
-                            // check cyclic dependency and throw error if needed
-                            // the wrap and populateMap combination method is
-                            // itself DFS recursive
-                            if (objectsRecord.contains(result)) {
-                                throw recursivelyDefinedObjectException(key);
-                            }
-
-                            objectsRecord.add(result);
-
-                            testValidity(result);
-                            this.map.put(key, wrap(result, objectsRecord));
-
-                            objectsRecord.remove(result);
-
-                            // we don't use the result anywhere outside of wrap
-                            // if it's a resource we should be sure to close it
-                            // after calling toString
-                            if (result instanceof Closeable) {
-                                try {
-                                    ((Closeable) result).close();
-                                } catch (IOException ignore) {
-                                }
-                            }
-                        }
-                    } catch (IllegalAccessException ignore) {
-                    } catch (IllegalArgumentException ignore) {
-                    } catch (InvocationTargetException ignore) {
+                        ((Closeable) result).close();
+                    } catch (IOException ignore) {
                     }
                 }
             }
         }
     }
 
-    private static boolean isValidMethodName(String name) {
+    static boolean isValidMethodName(String name) {
         return !"getClass".equals(name) && !"getDeclaringClass".equals(name);
     }
 
-    private static String getKeyNameFromMethod(Method method) {
+    static String getKeyNameFromMethod(Method method) {
         final int ignoreDepth = getAnnotationDepth(method, JSONPropertyIgnore.class);
         if (ignoreDepth > 0) {
             final int forcedNameDepth = getAnnotationDepth(method, JSONPropertyName.class);
@@ -1848,6 +1865,9 @@ public class JSONObject {
             key = name.substring(3);
         } else if (name.startsWith("is") && name.length() > 2) {
             key = name.substring(2);
+        } else if (name.startsWith("set") && name.length() > 3
+                && method.getParameterTypes().length == 1) {
+            key = name.substring(3);
         } else {
             return null;
         }
@@ -1933,7 +1953,7 @@ public class JSONObject {
      *            annotation to look for
      * @return Depth of the annotation or -1 if the annotation is not on the method.
      */
-    private static int getAnnotationDepth(final Method m, final Class<? extends Annotation> annotationClass) {
+    static int getAnnotationDepth(final Method m, final Class<? extends Annotation> annotationClass) {
         // if we have invalid data the result is -1
         if (m == null || annotationClass == null) {
             return -1;
@@ -2268,7 +2288,10 @@ public class JSONObject {
         if (string == null || string.isEmpty()) {
             return "\"\"";
         }
-        Writer sw = new StringBuilderWriter(string.length() + 2);
+        if (firstEscape(string) < 0) {
+            return "\"" + string + "\"";
+        }
+        Writer sw = new StringBuilderWriter(string.length() + 16);
         try {
             return quote(string, sw).toString();
         } catch (IOException ignored) {
@@ -2291,59 +2314,101 @@ public class JSONObject {
             return w;
         }
 
-        char b;
-        char c = 0;
-        String hhhh;
-        int i;
         int len = string.length();
-
+        int i = firstEscape(string);
         w.write('"');
-        for (i = 0; i < len; i += 1) {
-            b = c;
-            c = string.charAt(i);
-            switch (c) {
-            case '\\':
-            case '"':
-                w.write('\\');
-                w.write(c);
-                break;
-            case '/':
-                if (b == '<') {
-                    w.write('\\');
-                }
-                w.write(c);
-                break;
-            case '\b':
-                w.write("\\b");
-                break;
-            case '\t':
-                w.write("\\t");
-                break;
-            case '\n':
-                w.write("\\n");
-                break;
-            case '\f':
-                w.write("\\f");
-                break;
-            case '\r':
-                w.write("\\r");
-                break;
-            default:
-                if (c < ' ' || (c >= '\u0080' && c < '\u00a0')
-                        || (c >= '\u2000' && c < '\u2100')) {
-                    w.write("\\u");
-                    hhhh = Integer.toHexString(c);
-                    w.write("0000", 0, 4 - hhhh.length());
-                    w.write(hhhh);
-                } else {
-                    w.write(c);
+        if (i < 0) {
+            w.write(string);
+            w.write('"');
+            return w;
+        }
+
+        // the characters from start to i are written in one call
+        int start = 0;
+        char b = i > 0 ? string.charAt(i - 1) : 0;
+        for (; i < len; i += 1) {
+            char c = string.charAt(i);
+            String escape;
+            if (c < ESCAPES.length) {
+                escape = ESCAPES[c];
+                if (escape == null) {
+                    if (c != '/' || b != '<') {
+                        b = c;
+                        continue;
+                    }
+                    escape = "\\/";
                 }
+            } else if (c < '\u00a0' || (c >= '\u2000' && c < '\u2100')) {
+                escape = null;
+            } else {
+                b = c;
+                continue;
             }
+            if (i > start) {
+                w.write(string, start, i - start);
+            }
+            if (escape != null) {
+                w.write(escape);
+            } else {
+                writeUnicodeEscape(c, w);
+            }
+            start = i + 1;
+            b = c;
+        }
+        if (len > start) {
+            w.write(string, start, len - start);
         }
         w.write('"');
         return w;
     }
 
+    /**
+     * The escape sequences of the ASCII characters that must be escaped in a
+     * JSON string, indexed by character, or null for the others.
+     */
+    private static final String[] ESCAPES = new String[128];
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    static {
+        for (char c = 0; c < ' '; c++) {
+            ESCAPES[c] = new String(new char[] {'\\', 'u', '0', '0', HEX_DIGITS[c >> 4], HEX_DIGITS[c & 0xf]});
+        }
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+    }
+
+    /**
+     * Find the first character of a string that quote must escape.
+     *
+     * @return its index, or -1 if the string can be written as it is.
+     */
+    private static int firstEscape(String string) {
+        char b = 0;
+        for (int i = 0, len = string.length(); i < len; i += 1) {
+            char c = string.charAt(i);
+            if (c < ESCAPES.length) {
+                if (ESCAPES[c] != null || (c == '/' && b == '<')) {
+                    return i;
+                }
+            } else if (c < '\u00a0' || (c >= '\u2000' && c < '\u2100')) {
+                return i;
+            }
+            b = c;
+        }
+        return -1;
+    }
+
+    private static void writeUnicodeEscape(char c, Writer w) throws IOException {
+        w.write(new char[] {'\\', 'u', HEX_DIGITS[c >> 12], HEX_DIGITS[(c >> 8) & 0xf],
+                HEX_DIGITS[(c >> 4) & 0xf], HEX_DIGITS[c & 0xf]});
+    }
+
     /**
      * Remove a name and its value, if present.
      *
@@ -2565,6 +2630,31 @@ public class JSONObject {
             // This will narrow any values to the smallest reasonable Object representation
             // (Integer, Long, or BigInteger)
 
+            // Integers of up to 18 digits always fit in a long, so they are
+            // converted directly without a BigInteger.
+            int length = val.length();
+            int digitsStart = initial == '-' ? 1 : 0;
+            if (length > digitsStart && length - digitsStart <= 18) {
+                long value = 0;
+                int i = digitsStart;
+                for (; i < length; i++) {
+                    char c = val.charAt(i);
+                    if (c < '0' || c > '9') {
+                        break;
+                    }
+                    value = value * 10 + (c - '0');
+                }
+                if (i == length) {
+                    if (digitsStart == 1) {
+                        value = -value;
+                    }
+                    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                        return Integer.valueOf((int) value);
+                    }
+                    return Long.valueOf(value);
+                }
+            }
+
             // BigInteger down conversion: We use a similar bitLength compare as
             // BigInteger#intValueExact uses. Increases GC, but objects hold
             // only what they need. i.e. Less runtime overhead if the value is
@@ -2838,7 +2928,7 @@ public class JSONObject {
         } else if (value instanceof Boolean) {
             writer.write(value.toString());
         } else if (value instanceof Enum<?>) {
-            writer.write(quote(((Enum<?>)value).name()));
+            quote(((Enum<?>)value).name(), writer);
         } else if (value instanceof JSONObject) {
             ((JSONObject) value).write(writer, indentFactor, indent);
         } else if (value instanceof JSONArray) {
@@ -2901,7 +2991,7 @@ public class JSONObject {
             if (length == 1) {
             	final Entry<String,?> entry = this.entrySet().iterator().next();
                 final String key = entry.getKey();
-                writer.write(quote(key));
+                quote(key, writer);
                 writer.write(':');
                 if (indentFactor > 0) {
                     writer.write(' ');
@@ -2922,7 +3012,7 @@ public class JSONObject {
                     }
                     indent(writer, newIndent);
                     final String key = entry.getKey();
-                    writer.write(quote(key));
+                    quote(key, writer);
                     writer.write(':');
                     if (indentFactor > 0) {
                         writer.write(' ');
@@ -2946,6 +3036,136 @@ public class JSONObject {
         }
     }
 
+    /**
+     * Write the contents of the JSONObject as UTF-8 encoded JSON text to a
+     * stream. For compactness, no whitespace is added. The characters are
+     * encoded directly into a byte buffer that is handed to the stream as it
+     * fills, without an intermediate String or OutputStreamWriter. The stream
+     * is neither flushed nor closed.
+     * <p><b>
+     * Warning: This method assumes that the data structure is acyclical.
+     * </b>
+     *
+     * @param out the stream that receives the bytes.
+     * @return The stream.
+     * @throws JSONException if a called function fails or unable to write
+     */
+    public OutputStream writeTo(OutputStream out) throws JSONException {
+        return this.writeTo(out, 0);
+    }
+
+    /**
+     * Write the contents of the JSONObject as UTF-8 encoded JSON text to a
+     * stream, indented as by {@link #write(Writer, int, int)}. The stream is
+     * neither flushed nor closed.
+     *
+     * @param out the stream that receives the bytes.
+     * @param indentFactor
+     *            The number of spaces to add to each level of indentation.
+     * @return The stream.
+     * @throws JSONException if a called function fails or unable to write
+     */
+    public OutputStream writeTo(OutputStream out, int indentFactor) throws JSONException {
+        this.writeTo(new Utf8Writer(out), indentFactor);
+        return out;
+    }
+
+    /**
+     * Write a Java value as JSON text, with the same result as
+     * <code>JSONObject.wrap(value).toString()</code> but without building
+     * the JSONObject and JSONArray tree: beans are read through their cached
+     * getters and written as they are read, and Maps, Collections and arrays
+     * are walked directly. The members of a bean are written in the order of
+     * its getters. For compactness, no whitespace is added.
+     * <p>
+     * As with {@link #JSONObject(Object)}, a bean that contains itself is
+     * reported with a JSONException; part of the text may have been written.
+     *
+     * @param value
+     *            A bean, Map, Collection, array or simple value.
+     * @param writer
+     *            Writes the serialized JSON
+     * @return The writer.
+     * @throws JSONException if a bean is recursively defined, a getter
+     *             returns a non-finite number, or the writer fails
+     */
+    public static Writer writeBean(Object value, Writer writer) throws JSONException {
+        try {
+            new BeanWriter(writer).write(value);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return writer;
+    }
+
+    /**
+     * Write a Java value as UTF-8 encoded JSON text to an OutputStream, as
+     * {@link #writeBean(Object, Writer)} does. The stream is not flushed or
+     * closed.
+     *
+     * @param value
+     *            A bean, Map, Collection, array or simple value.
+     * @param out the stream that receives the bytes.
+     * @return The stream.
+     * @throws JSONException if a bean is recursively defined, a getter
+     *             returns a non-finite number, or the stream fails
+     */
+    public static OutputStream writeBean(Object value, OutputStream out) throws JSONException {
+        Utf8Writer writer = new Utf8Writer(out);
+        try {
+            new BeanWriter(writer).write(value);
+            writer.finish();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Write the contents of the JSONObject as UTF-8 encoded JSON text into a
+     * ByteBuffer, from its position. For compactness, no whitespace is added.
+     *
+     * @param buffer the buffer that receives the bytes; its position is
+     *            advanced past them.
+     * @return The buffer.
+     * @throws JSONException if a called function fails
+     * @throws java.nio.BufferOverflowException if the text does not fit in the
+     *             remaining space of the buffer; part of it may have been written.
+     */
+    public ByteBuffer writeTo(ByteBuffer buffer) throws JSONException {
+        return this.writeTo(buffer, 0);
+    }
+
+    /**
+     * Write the contents of the JSONObject as UTF-8 encoded JSON text into a
+     * ByteBuffer, from its position, indented as by
+     * {@link #write(Writer, int, int)}.
+     *
+     * @param buffer the buffer that receives the bytes; its position is
+     *            advanced past them.
+     * @param indentFactor
+     *            The number of spaces to add to each level of indentation.
+     * @return The buffer.
+     * @throws JSONException if a called function fails
+     * @throws java.nio.BufferOverflowException if the text does not fit in the
+     *             remaining space of the buffer; part of it may have been written.
+     */
+    public ByteBuffer writeTo(ByteBuffer buffer, int indentFactor) throws JSONException {
+        this.writeTo(new Utf8Writer(buffer), indentFactor);
+        return buffer;
+    }
+
+    private void writeTo(Utf8Writer writer, int indentFactor) throws JSONException {
+        try {
+            this.write(writer, indentFactor, 0);
+            writer.finish();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        } catch (JSONException e) {
+            throw Utf8Writer.unwrapOverflow(e);
+        }
+    }
+
     /**
      * Returns a java.util.Map containing all of the entries in this object.
      * If an entry in the object is a JSONArray or JSONObject it will also
@@ -2973,6 +3193,52 @@ public class JSONObject {
         return results;
     }
 
+    /**
+     * Create a Java bean from this JSONObject, the reverse of
+     * {@link #JSONObject(Object)}. The bean is created with its public
+     * no-argument constructor and each member with a matching public setter
+     * is converted to the type of the setter and set. The key of a setter is
+     * found like the key of a getter: <code>setName</code> sets
+     * <code>name</code>, and the {@link JSONPropertyName} and
+     * {@link JSONPropertyIgnore} annotations apply, on the setter or else on
+     * its getter. Members without a setter are ignored.
+     * <p>
+     * Nested objects and arrays are converted to beans, Maps, Collections and
+     * arrays following the generic parameter types of the setters. The
+     * setters of a class are looked up once and cached.
+     *
+     * @param <T> the type of the bean
+     * @param klass the class of the bean
+     * @return the bean
+     * @throws JSONException if the bean cannot be created, or a value
+     *  cannot be converted to the type of its setter
+     */
+    public <T> T toBean(Class<T> klass) throws JSONException {
+        return BeanBinder.bind(this, klass);
+    }
+
+    /**
+     * Create a Java bean from the JSON object text of a tokener, without
+     * building a JSONObject first: the members are read one at a time and
+     * set as {@link #toBean(Class)} does, and the members without a setter
+     * are skipped without building their values. If a key is repeated, the
+     * last value is set.
+     *
+     * @param <T> the type of the bean
+     * @param x a tokener positioned before a JSON object
+     * @param klass the class of the bean
+     * @return the bean
+     * @throws JSONException if the text is not a valid object, the bean
+     *  cannot be created, or a value cannot be converted
+     */
+    public static <T> T bind(JSONTokener x, Class<T> klass) throws JSONException {
+        JSONPullParser parser = new JSONPullParser(x);
+        if (parser.next() != JSONPullParser.Event.START_OBJECT) {
+            throw x.syntaxError("A JSONObject text must begin with '{'");
+        }
+        return BeanBinder.bind(parser, klass);
+    }
+
     /**
      * Create a new JSONException in a common format for incorrect conversions.
      * @param key name of the key
@@ -2980,7 +3246,7 @@ public class JSONObject {
      * @param cause optional cause of the coercion failure
      * @return JSONException that can be thrown.
      */
-    private static JSONException wrongValueFormatException(
+    static JSONException wrongValueFormatException(
             String key,
             String valueType,
             Object value,
@@ -3007,7 +3273,7 @@ public class JSONObject {
      * @param key name of the key
      * @return JSONException that can be thrown.
      */
-    private static JSONException recursivelyDefinedObjectException(String key) {
+    static JSONException recursivelyDefinedObjectException(String key) {
         return new JSONException(
             "JavaBean object contains recursively defined member variable of key " + quote(key)
         );
@@ -3039,15 +3305,28 @@ public class JSONObject {
      * Represents a node in the JSON object tree, with path and value.
      */
     public static class JSONNode {
-        private final String path;
+        private String path;
+        private final JSONTreeSpliterator.Segment segment;
         private final Object value;
 
         public JSONNode(String path, Object value) {
             this.path = path;
+            this.segment = null;
+            this.value = value;
+        }
+
+        /**
+         * A node whose path is built from its segments on first use.
+         */
+        JSONNode(JSONTreeSpliterator.Segment segment, Object value) {
+            this.segment = segment;
             this.value = value;
         }
 
         public String getPath() {
+            if (path == null) {
+                path = segment.path();
+            }
             return path;
         }
 
@@ -3057,7 +3336,7 @@ public class JSONObject {
 
         @Override
         public String toString() {
-            return "JSONNode{path='" + path + "', value=" + value + '}';
+            return "JSONNode{path='" + getPath() + "', value=" + value + '}';
         }
     }
 
@@ -3066,30 +3345,24 @@ public class JSONObject {
      * @return Stream of JSONNode objects (each has a full path and a value)
      */
     public Stream<JSONNode> toStream() {
-        return toStream("", this);
+        return StreamSupport.stream(new JSONTreeSpliterator(this), false);
     }
 
     /**
-     * Recursive helper method to flatten JSONObject/JSONArray into JSONNode stream.
+     * Read a JSON text as a lazy stream of its leaves, with the same paths and
+     * values as {@link #toStream()} on the parsed text. The text is parsed as
+     * the stream is consumed and no JSONObject or JSONArray is built, so a
+     * short-circuiting operation such as <code>findFirst</code> or
+     * <code>limit</code> stops reading early and a filter over a large text
+     * does not hold it in memory. The root may also be an array, whose
+     * elements have the paths <code>[0]</code>, <code>[1]</code>, ... Errors in
+     * the text are thrown by the terminal operation of the stream.
+     *
+     * @param reader A reader of a JSON text. The caller must close it.
+     * @return Stream of JSONNode objects in document order
      */
-    private Stream<JSONNode> toStream(String path, Object value) {
-        if (value instanceof JSONObject) {
-            JSONObject obj = (JSONObject) value;
-            return obj.keySet().stream()
-                    .flatMap(key -> {
-                        String newPath = path.isEmpty() ? "/" + key : path + "/" + key;
-                        return toStream(newPath, obj.get(key));
-                    });
-        } else if (value instanceof JSONArray) {
-            JSONArray array = (JSONArray) value;
-            return IntStream.range(0, array.length())
-                    .boxed()
-                    .flatMap(i -> {
-                        String newPath = path + "[" + i + "]";
-                        return toStream(newPath, array.get(i));
-                    });
-        } else {
-            return Stream.of(new JSONNode(path, value));
-        }
+    public static Stream<JSONNode> toStream(Reader reader) {
+        return StreamSupport.stream(new JSONNodeSpliterator(new JSONPullParser(reader)), false);
     }
+
 }
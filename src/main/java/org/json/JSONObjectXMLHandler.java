@@ -0,0 +1,148 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link XMLHandler} behind {@link XML#toJSONObject(java.io.Reader, XMLParserConfiguration)}.
+ * It builds one JSONObject per element and attaches it to its parent when the
+ * element ends, following the conversion rules of the configuration.
+ */
+final class JSONObjectXMLHandler implements XMLHandler {
+
+    /** The state of an element that has started but not ended. */
+    private static final class Element {
+        final String tagName;
+        final JSONObject jsonObject;
+        boolean nil;
+        XMLXsiTypeConverter<?> xsiTypeConverter;
+        boolean hasContent;
+        /** Whether the element is an empty-element tag, which is never collapsed to its content. */
+        boolean empty;
+
+        Element(String tagName, JSONObject jsonObject) {
+            this.tagName = tagName;
+            this.jsonObject = jsonObject;
+        }
+    }
+
+    private final XMLParserConfiguration config;
+
+    /** The open elements, the innermost last, above the root context. */
+    private final ArrayList<Element> stack = new ArrayList<Element>();
+
+    /**
+     * @param context the JSONObject that receives the top level elements.
+     * @param config the conversion rules.
+     */
+    JSONObjectXMLHandler(JSONObject context, XMLParserConfiguration config) {
+        this.config = config;
+        this.stack.add(new Element(null, context));
+    }
+
+    @Override
+    public void startElement(String name, List<Map.Entry<String, String>> attributes) {
+        this.top().hasContent = true;
+        Element element = new Element(name, new JSONObject());
+        Map<String, XMLXsiTypeConverter<?>> xsiTypeMap = this.config.getXsiTypeMap();
+        for (Map.Entry<String, String> attribute : attributes) {
+            String string = attribute.getKey();
+            String value = attribute.getValue();
+            if (this.config.isConvertNilAttributeToNull()
+                    && XML.NULL_ATTR.equals(string)
+                    && Boolean.parseBoolean(value)) {
+                element.nil = true;
+            } else if (xsiTypeMap != null && !xsiTypeMap.isEmpty()
+                    && XML.TYPE_ATTR.equals(string)) {
+                element.xsiTypeConverter = xsiTypeMap.get(value);
+            } else if (!element.nil) {
+                element.jsonObject.accumulate(string, convert(value, this.config));
+            }
+        }
+        this.stack.add(element);
+    }
+
+    @Override
+    public void emptyElement(String name, List<Map.Entry<String, String>> attributes) {
+        this.startElement(name, attributes);
+        this.top().empty = true;
+        this.endElement(name);
+    }
+
+    @Override
+    public void text(String text) {
+        Element element = this.top();
+        element.hasContent = true;
+        if (element.xsiTypeConverter != null) {
+            element.jsonObject.accumulate(this.config.getcDataTagName(),
+                    XML.stringToValue(text, element.xsiTypeConverter));
+        } else {
+            element.jsonObject.accumulate(this.config.getcDataTagName(), convert(text, this.config));
+        }
+    }
+
+    @Override
+    public void cdata(String text) {
+        Element element = this.top();
+        element.hasContent = true;
+        element.jsonObject.accumulate(this.config.getcDataTagName(), text);
+    }
+
+    @Override
+    public void endElement(String name) {
+        Element element = this.stack.remove(this.stack.size() - 1);
+        JSONObject context = this.top().jsonObject;
+        String tagName = element.tagName;
+        JSONObject jsonObject = element.jsonObject;
+        String cDataTagName = this.config.getcDataTagName();
+        if (this.config.getForceList().contains(tagName)) {
+            // Force the value to be an array
+            if (element.nil && !element.hasContent) {
+                context.append(tagName, JSONObject.NULL);
+            } else if (jsonObject.length() == 0) {
+                context.put(tagName, new JSONArray());
+            } else if (!element.empty && jsonObject.length() == 1 && jsonObject.opt(cDataTagName) != null) {
+                context.append(tagName, jsonObject.opt(cDataTagName));
+            } else {
+                context.append(tagName, jsonObject);
+            }
+        } else {
+            if (element.nil && !element.hasContent) {
+                context.accumulate(tagName, JSONObject.NULL);
+            } else if (jsonObject.length() == 0) {
+                context.accumulate(tagName, "");
+            } else if (!element.empty && jsonObject.length() == 1 && jsonObject.opt(cDataTagName) != null) {
+                context.accumulate(tagName, jsonObject.opt(cDataTagName));
+            } else {
+                if (!element.empty && !this.config.shouldTrimWhiteSpace()) {
+                    XML.removeEmpty(jsonObject, this.config);
+                }
+                context.accumulate(tagName, jsonObject);
+            }
+        }
+    }
+
+    private Element top() {
+        return this.stack.get(this.stack.size() - 1);
+    }
+
+    /**
+     * Convert an attribute value or a text, keeping booleans and numbers as
+     * strings when the configuration asks for it.
+     */
+    static Object convert(String string, XMLParserConfiguration config) {
+        Object obj = XML.stringToValue(string);
+        if (obj instanceof Boolean) {
+            return config.isKeepBooleanAsString() ? string : obj;
+        }
+        if (obj instanceof Number) {
+            return config.isKeepNumberAsString() ? string : obj;
+        }
+        return obj;
+    }
+}
@@ -14,6 +14,26 @@ public class JSONParserConfiguration extends ParserConfiguration {
      */
     private boolean useNativeNulls;
 
+    /**
+     * Used to indicate whether decimal numbers are parsed into Double instead of BigDecimal.
+     */
+    private boolean useDoubleForDecimals;
+
+    /**
+     * Used to indicate whether parsed arrays of numbers are kept in primitive arrays.
+     */
+    private boolean compactNumericArrays;
+
+    /**
+     * Used to indicate whether parsed objects keep their entries in a compact map.
+     */
+    private boolean compactObjects;
+
+    /**
+     * The sizes of the containers met by the parsers using this configuration, or null.
+     */
+    ContainerSizeHints sizeHints;
+
     /**
      * Configuration with the default values.
      */
@@ -38,6 +58,11 @@ public class JSONParserConfiguration extends ParserConfiguration {
         clone.maxNestingDepth = maxNestingDepth;
         clone.keepStrings = keepStrings;
         clone.useNativeNulls = useNativeNulls;
+        clone.useDoubleForDecimals = useDoubleForDecimals;
+        clone.compactNumericArrays = compactNumericArrays;
+        clone.compactObjects = compactObjects;
+        clone.sizeHints = sizeHints;
+        clone.keyCache = keyCache;
         return clone;
     }
 
@@ -59,6 +84,19 @@ public class JSONParserConfiguration extends ParserConfiguration {
         return clone;
     }
 
+    /**
+     * Enables a bounded cache that makes the keys of parsed JSONObjects share one String
+     * instance per distinct key. See {@link ParserConfiguration#withKeyCacheSize(int)}.
+     *
+     * @param keyCacheSize the number of entries of the key cache, 0 to disable it
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public JSONParserConfiguration withKeyCacheSize(final int keyCacheSize) {
+        return super.withKeyCacheSize(keyCacheSize);
+    }
+
     /**
      * Controls the parser's behavior when meeting duplicate keys.
      * If set to false, the parser will throw a JSONException when meeting a duplicate key.
@@ -89,6 +127,82 @@ public class JSONParserConfiguration extends ParserConfiguration {
         return clone;
     }
 
+    /**
+     * Controls how the parser converts decimal numbers such as <code>1.5</code> or <code>2e10</code>.
+     * If set to true, the parser produces a Double, which is faster to parse and smaller to keep.
+     * Decimals that a Double can not hold, because they overflow or underflow, are still parsed as
+     * BigDecimal. If set to false, the default, every decimal is parsed as a BigDecimal so that the
+     * original representation is kept.
+     *
+     * @param useDoubleForDecimals defines if the parser should produce Double values for decimals
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public JSONParserConfiguration withUseDoubleForDecimals(final boolean useDoubleForDecimals) {
+        JSONParserConfiguration clone = this.clone();
+        clone.useDoubleForDecimals = useDoubleForDecimals;
+
+        return clone;
+    }
+
+    /**
+     * Controls how the parser keeps the elements of JSONArrays. If set to true, an array
+     * whose elements are all numbers of one kind, such as a time series, is kept in an
+     * <code>int[]</code>, <code>long[]</code> or <code>double[]</code> instead of one boxed
+     * object per element, until an element of another kind is put into it. The array
+     * behaves the same either way; {@link JSONArray#toIntArray()},
+     * {@link JSONArray#toLongArray()} and {@link JSONArray#toDoubleArray()} copy the
+     * numbers without boxing them.
+     * <p>
+     * Only Integers, Longs and Doubles are compacted. Decimals are parsed as BigDecimals
+     * unless {@link #withUseDoubleForDecimals(boolean)} is set. An array of BigDecimals is
+     * kept as a list of the parsed objects, because keeping them as doubles would mean
+     * creating a new BigDecimal on every read.
+     *
+     * @param compactNumericArrays defines if the parser should keep numbers in primitive arrays
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public JSONParserConfiguration withCompactNumericArrays(final boolean compactNumericArrays) {
+        JSONParserConfiguration clone = this.clone();
+        clone.compactNumericArrays = compactNumericArrays;
+
+        return clone;
+    }
+
+    /**
+     * Controls how the parser keeps the entries of JSONObjects. If set to true, each parsed
+     * object keeps its keys and values side by side in one array, found by open addressing,
+     * instead of a HashMap with one node object per entry; this takes much less memory for
+     * the small objects that most documents are made of. The object behaves the same either
+     * way, except that {@link JSONObject#getMapType()} reports the class of the compact map.
+     *
+     * @param compactObjects defines if the parser should keep the entries of objects in a compact map
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public JSONParserConfiguration withCompactObjects(final boolean compactObjects) {
+        JSONParserConfiguration clone = this.clone();
+        clone.compactObjects = compactObjects;
+
+        return clone;
+    }
+
+    /**
+     * Enables container size hints. The parser then records the size of each object and
+     * array it reads, by the path of keys leading to it, and creates the next object or
+     * array at the same path with room for as many entries as the smaller of the last
+     * two there, up to 256, so that documents with a repeated schema do not pay for
+     * growing and rehashing their containers. The sizes are shared by every parser
+     * using the returned configuration, and by the configurations derived from it.
+     *
+     * @param containerSizeHints defines if the parser should learn and use container sizes
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public JSONParserConfiguration withContainerSizeHints(final boolean containerSizeHints) {
+        JSONParserConfiguration clone = this.clone();
+        clone.sizeHints = containerSizeHints ? new ContainerSizeHints() : null;
+
+        return clone;
+    }
+
     /**
      * Sets the strict mode configuration for the JSON parser with default true value
      * <p>
@@ -138,8 +252,53 @@ public class JSONParserConfiguration extends ParserConfiguration {
     public boolean isUseNativeNulls() {
         return this.useNativeNulls;
     }
+
+    /**
+     * The parser's behavior when meeting a decimal number, controls whether the parser should
+     * produce a Double (<code>isUseDoubleForDecimals() == true</code>)
+     * or a BigDecimal (<code>isUseDoubleForDecimals() == false</code>).
+     *
+     * @return The <code>useDoubleForDecimals</code> configuration value.
+     */
+    public boolean isUseDoubleForDecimals() {
+        return this.useDoubleForDecimals;
+    }
     
 
+    /**
+     * The parser's behavior when reading an array of numbers, controls whether the parser should
+     * keep the numbers in a primitive array (<code>isCompactNumericArrays() == true</code>)
+     * or box each of them (<code>isCompactNumericArrays() == false</code>).
+     *
+     * @return The <code>compactNumericArrays</code> configuration value.
+     */
+    public boolean isCompactNumericArrays() {
+        return this.compactNumericArrays;
+    }
+
+    /**
+     * The parser's behavior when reading an object, controls whether the parser should
+     * keep its entries in a compact map (<code>isCompactObjects() == true</code>)
+     * or in a HashMap (<code>isCompactObjects() == false</code>).
+     *
+     * @return The <code>compactObjects</code> configuration value.
+     */
+    public boolean isCompactObjects() {
+        return this.compactObjects;
+    }
+
+    /**
+     * The parser's behavior when creating an object or array, controls whether the parser
+     * should size it from the containers it has read before at the same path
+     * (<code>isContainerSizeHints() == true</code>) or start with the default capacity
+     * (<code>isContainerSizeHints() == false</code>).
+     *
+     * @return true if container size hints are enabled.
+     */
+    public boolean isContainerSizeHints() {
+        return this.sizeHints != null;
+    }
+
     /**
      * The parser throws an Exception when strict mode is true and tries to parse invalid JSON characters.
      * Otherwise, the parser is more relaxed and might tolerate some invalid characters.
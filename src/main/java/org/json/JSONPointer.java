@@ -179,6 +179,13 @@ public class JSONPointer {
         this.refTokens = new ArrayList<String>(refTokens);
     }
 
+    /**
+     * @return the reference tokens of this pointer, unescaped. The list must not be changed.
+     */
+    List<String> getRefTokens() {
+        return this.refTokens;
+    }
+
     /**
      * @see <a href="https://tools.ietf.org/html/rfc6901#section-3">rfc6901 section 3</a>
      */
@@ -240,6 +247,26 @@ public class JSONPointer {
         }
     }
 
+    /**
+     * Two JSONPointers are equal if they have the same reference tokens, so
+     * that they can be used as keys of a map.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof JSONPointer)) {
+            return false;
+        }
+        return this.refTokens.equals(((JSONPointer) other).refTokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.refTokens.hashCode();
+    }
+
     /**
      * Returns a string representing the JSONPointer path value using string
      * representation
@@ -0,0 +1,399 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A JSONPullParser reads a JSON text as a sequence of events, one token at a
+ * time, instead of building a JSONObject or JSONArray for the whole text. It
+ * is meant for documents that are too large to keep in memory, such as an
+ * array of millions of records: the memory used does not depend on the size
+ * of the text, only on its nesting depth.
+ * <p>
+ * A typical loop walks the events and materializes only the sub-trees it
+ * needs:
+ * <pre>{@code
+ * JSONPullParser parser = new JSONPullParser(reader);
+ * parser.next(); // START_ARRAY
+ * while (parser.next() == JSONPullParser.Event.START_OBJECT) {
+ *     JSONObject record = parser.readObject();
+ *     ...
+ * }
+ * }</pre>
+ * The events of an object are <code>START_OBJECT</code>, then a
+ * <code>KEY</code> followed by the events of its value for each member, then
+ * <code>END_OBJECT</code>. The events of an array are
+ * <code>START_ARRAY</code>, the events of each element, then
+ * <code>END_ARRAY</code>. The text is parsed with the same rules as
+ * {@link JSONObject#JSONObject(JSONTokener)}, including the strict mode of the
+ * tokener's {@link JSONParserConfiguration}.
+ */
+public class JSONPullParser implements Closeable {
+
+    /**
+     * The events reported by the parser.
+     */
+    public enum Event {
+        /** The start of an object, <code>{</code>. */
+        START_OBJECT,
+        /** The end of an object, <code>}</code>. */
+        END_OBJECT,
+        /** The start of an array, <code>[</code>. */
+        START_ARRAY,
+        /** The end of an array, <code>]</code>. */
+        END_ARRAY,
+        /** The key of an object member. */
+        KEY,
+        /** A string value. */
+        VALUE_STRING,
+        /** A number value. */
+        VALUE_NUMBER,
+        /** A <code>true</code> or <code>false</code> value. */
+        VALUE_BOOLEAN,
+        /** A <code>null</code> value. */
+        VALUE_NULL
+    }
+
+    /** The source of the tokens. */
+    private final JSONTokener x;
+
+    /** The configuration of the tokener. */
+    private final JSONParserConfiguration configuration;
+
+    /** For each open container, true if it is an object, false if it is an array. */
+    private boolean[] objects = new boolean[16];
+
+    /** The number of open containers. */
+    private int depth;
+
+    /** True if the current container has not reported an element yet. */
+    private boolean first;
+
+    /** True if the last event was a KEY, so a value comes next. */
+    private boolean afterKey;
+
+    /** True once the root value has been read completely. */
+    private boolean done;
+
+    /** The last event returned by {@link #next()}, or null. */
+    private Event event;
+
+    /** The key or the value of the last event. */
+    private Object value;
+
+    /**
+     * Construct a JSONPullParser that reads the tokens of a JSONTokener.
+     *
+     * @param x A JSONTokener positioned before a JSON value.
+     */
+    public JSONPullParser(JSONTokener x) {
+        this.x = x;
+        JSONParserConfiguration configuration = x.getJsonParserConfiguration();
+        this.configuration = configuration == null ? new JSONParserConfiguration() : configuration;
+    }
+
+    /**
+     * Construct a JSONPullParser from a Reader. The caller must close the Reader.
+     *
+     * @param reader A reader of a JSON text.
+     */
+    public JSONPullParser(Reader reader) {
+        this(new JSONTokener(reader));
+    }
+
+    /**
+     * Construct a JSONPullParser from a string.
+     *
+     * @param source A JSON text.
+     */
+    public JSONPullParser(String source) {
+        this(new JSONTokener(source));
+    }
+
+    /**
+     * Determine if there are more events.
+     *
+     * @return true until the root value has been read completely.
+     * @throws JSONException if there is an error reading the source.
+     */
+    public boolean hasNext() throws JSONException {
+        if (this.done) {
+            return false;
+        }
+        if (this.event == null) {
+            // an empty text has no events
+            if (this.x.nextClean() == 0) {
+                return false;
+            }
+            this.x.back();
+        }
+        return true;
+    }
+
+    /**
+     * Read the next event.
+     *
+     * @return the next event.
+     * @throws JSONException if the text is not valid JSON.
+     * @throws NoSuchElementException if there are no more events.
+     */
+    public Event next() throws JSONException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more JSON events");
+        }
+        this.value = null;
+        if (this.depth == 0 || this.afterKey) {
+            this.afterKey = false;
+            return this.nextValue(this.x.nextClean());
+        }
+        boolean inObject = this.objects[this.depth - 1];
+        char close = inObject ? '}' : ']';
+        char c = this.x.nextClean();
+        if (c == close) {
+            return this.endContainer();
+        }
+        if (this.first) {
+            this.first = false;
+        } else if (c == ',' || (inObject && c == ';' && !this.configuration.isStrictMode())) {
+            c = this.x.nextClean();
+            if (c == close) {
+                // trailing commas are not allowed in strict mode
+                if (this.configuration.isStrictMode()) {
+                    throw this.x.syntaxError(inObject
+                            ? "Strict mode error: Expected another object element"
+                            : "Strict mode error: Expected another array element");
+                }
+                return this.endContainer();
+            }
+        } else if (inObject) {
+            throw this.x.syntaxError(c == ';'
+                    ? "Strict mode error: Invalid character ';' found"
+                    : "Expected a ',' or '}'");
+        } else {
+            throw this.x.syntaxError("Expected a ',' or ']'");
+        }
+
+        if (inObject) {
+            if (c == 0) {
+                throw this.x.syntaxError("A JSONObject text must end with '}'");
+            }
+            this.value = this.x.nextKey(c);
+            if (this.x.nextClean() != ':') {
+                throw this.x.syntaxError("Expected a ':' after a key");
+            }
+            this.afterKey = true;
+            return this.event = Event.KEY;
+        }
+        if (c == 0) {
+            throw this.x.syntaxError("Expected a ',' or ']'");
+        }
+        if (c == ',') {
+            // an elided array element is null, as in JSONArray
+            if (this.configuration.isStrictMode()) {
+                throw this.x.syntaxError("Strict mode error: Expected a valid array element");
+            }
+            this.x.back();
+            this.value = JSONObject.NULL;
+            return this.event = Event.VALUE_NULL;
+        }
+        return this.nextValue(c);
+    }
+
+    /**
+     * The last event returned by {@link #next()}.
+     *
+     * @return the current event, or null before the first call to {@link #next()}.
+     */
+    public Event getEvent() {
+        return this.event;
+    }
+
+    /**
+     * The number of objects and arrays that contain the current position.
+     * It is 1 after the <code>START_OBJECT</code> of the root object and 0
+     * after its <code>END_OBJECT</code>.
+     *
+     * @return the nesting depth.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Get the key of a <code>KEY</code> event, the value of a
+     * <code>VALUE_STRING</code> event, or the text of a <code>VALUE_NUMBER</code> event.
+     *
+     * @return the string.
+     * @throws JSONException if the current event has no string.
+     */
+    public String getString() throws JSONException {
+        if (this.event == Event.KEY || this.event == Event.VALUE_STRING) {
+            return (String) this.value;
+        }
+        if (this.event == Event.VALUE_NUMBER) {
+            return this.value.toString();
+        }
+        throw this.wrongEvent("a string");
+    }
+
+    /**
+     * Get the value of a <code>VALUE_NUMBER</code> event.
+     *
+     * @return the number, an Integer, Long, BigInteger, BigDecimal or Double.
+     * @throws JSONException if the current event is not a number.
+     */
+    public Number getNumber() throws JSONException {
+        if (this.event == Event.VALUE_NUMBER) {
+            return (Number) this.value;
+        }
+        throw this.wrongEvent("a number");
+    }
+
+    /**
+     * Get the value of a <code>VALUE_BOOLEAN</code> event.
+     *
+     * @return the boolean.
+     * @throws JSONException if the current event is not a boolean.
+     */
+    public boolean getBoolean() throws JSONException {
+        if (this.event == Event.VALUE_BOOLEAN) {
+            return ((Boolean) this.value).booleanValue();
+        }
+        throw this.wrongEvent("a boolean");
+    }
+
+    /**
+     * Get the value of the current event: a String for <code>KEY</code> and
+     * <code>VALUE_STRING</code>, a Number, a Boolean, or
+     * {@link JSONObject#NULL} for <code>VALUE_NULL</code>.
+     *
+     * @return the value, or null for the start and end events.
+     */
+    public Object getValue() {
+        return this.value;
+    }
+
+    /**
+     * Skip the children of the current <code>START_OBJECT</code> or
+     * <code>START_ARRAY</code> event, so that the current event becomes the
+     * matching <code>END_OBJECT</code> or <code>END_ARRAY</code>. The skipped
+     * text is scanned without building any value. For any other event this
+     * method does nothing.
+     *
+     * @throws JSONException if the input ends before the end of the container.
+     */
+    public void skipChildren() throws JSONException {
+        if (this.event == Event.START_OBJECT || this.event == Event.START_ARRAY) {
+            this.x.skipContainer();
+            this.endContainer();
+        }
+    }
+
+    /**
+     * Read the object started by the current <code>START_OBJECT</code> event.
+     * The current event becomes the matching <code>END_OBJECT</code>.
+     *
+     * @return the object.
+     * @throws JSONException if the current event is not <code>START_OBJECT</code>
+     *  or the object is not valid.
+     */
+    public JSONObject readObject() throws JSONException {
+        if (this.event != Event.START_OBJECT) {
+            throw this.wrongEvent("the start of an object");
+        }
+        this.x.back();
+        JSONObject jsonObject = new JSONObject(this.x, this.configuration);
+        this.endContainer();
+        return jsonObject;
+    }
+
+    /**
+     * Read the array started by the current <code>START_ARRAY</code> event.
+     * The current event becomes the matching <code>END_ARRAY</code>.
+     *
+     * @return the array.
+     * @throws JSONException if the current event is not <code>START_ARRAY</code>
+     *  or the array is not valid.
+     */
+    public JSONArray readArray() throws JSONException {
+        if (this.event != Event.START_ARRAY) {
+            throw this.wrongEvent("the start of an array");
+        }
+        this.x.back();
+        JSONArray jsonArray = new JSONArray(this.x, this.configuration);
+        this.endContainer();
+        return jsonArray;
+    }
+
+    /**
+     * Closes the underlying tokener.
+     *
+     * @throws IOException If an I/O error occurs while closing the reader.
+     */
+    @Override
+    public void close() throws IOException {
+        this.x.close();
+    }
+
+    private Event nextValue(char c) throws JSONException {
+        switch (c) {
+        case '{':
+            this.push(true);
+            return this.event = Event.START_OBJECT;
+        case '[':
+            this.push(false);
+            return this.event = Event.START_ARRAY;
+        default:
+            this.value = this.x.nextSimpleValue(c);
+            if (this.depth == 0) {
+                this.finish();
+            }
+            if (this.value instanceof String) {
+                return this.event = Event.VALUE_STRING;
+            }
+            if (this.value instanceof Boolean) {
+                return this.event = Event.VALUE_BOOLEAN;
+            }
+            if (this.value instanceof Number) {
+                return this.event = Event.VALUE_NUMBER;
+            }
+            return this.event = Event.VALUE_NULL;
+        }
+    }
+
+    private void push(boolean object) {
+        if (this.depth == this.objects.length) {
+            this.objects = Arrays.copyOf(this.objects, this.depth * 2);
+        }
+        this.objects[this.depth++] = object;
+        this.first = true;
+    }
+
+    private Event endContainer() throws JSONException {
+        this.first = false;
+        this.value = null;
+        this.event = this.objects[--this.depth] ? Event.END_OBJECT : Event.END_ARRAY;
+        if (this.depth == 0) {
+            this.finish();
+        }
+        return this.event;
+    }
+
+    private void finish() throws JSONException {
+        this.done = true;
+        if (this.configuration.isStrictMode() && this.x.nextClean() != 0) {
+            throw this.x.syntaxError("Strict mode error: Unparsed characters found at end of input text");
+        }
+    }
+
+    private JSONException wrongEvent(String expected) {
+        return new JSONException("Expected " + expected + " but the current event is " + this.event);
+    }
+}
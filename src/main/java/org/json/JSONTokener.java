@@ -1,7 +1,9 @@
 package org.json;
 
 import java.io.*;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 /*
 Public Domain.
@@ -15,6 +17,11 @@ Public Domain.
  * @version 2014-05-03
  */
 public class JSONTokener {
+    /** initial size of the buffer used for Reader input. */
+    private static final int BUFFER_SIZE = 8192;
+    /** the most characters of Reader input that a failed {@link #skipTo(char)} can roll back. */
+    private static final int MARK_LIMIT = 1000000;
+
     /** current read character position on the current line. */
     private long character;
     /** flag to indicate if the end of the input has been found. */
@@ -25,16 +32,40 @@ public class JSONTokener {
     private long line;
     /** previous character read from the input. */
     private char previous;
-    /** Reader for the input. */
+    /** Reader for the input, or null when the whole input is already in the buffer. */
     private final Reader reader;
     /** flag to indicate that a previous character was requested. */
     private boolean usePrevious;
     /** the number of characters read in the previous line. */
     private long characterPreviousLine;
+    /** characters of the input that have been read but not yet discarded. */
+    private char[] buffer;
+    /** position in the buffer of the next character to return. */
+    private int position;
+    /** position in the buffer just past the last valid character. */
+    private int limit;
+    /** position in the buffer of the first character a refill must keep, or -1. */
+    private int mark;
+    /** reusable buffer for building strings that contain escape sequences. */
+    private char[] scratch = new char[64];
+    /** number of characters in use in the scratch buffer. */
+    private int scratchLength;
+    /** the digits of the last unicode escape, kept for error messages. */
+    private final char[] hexDigits = new char[4];
+    /** the string of the last multi-character {@link #scanPast} search. */
+    private String shiftsFor;
+    /** the Horspool shift table of that string. */
+    private int[] shifts;
 
     // access to this object is required for strict mode checking
     private JSONParserConfiguration jsonParserConfiguration;
 
+    /**
+     * The path of the next value, set by the JSONObject or JSONArray being
+     * parsed when the configuration has container size hints.
+     */
+    int containerPath;
+
     /**
      * Construct a JSONTokener from a Reader. The caller must close the Reader.
      *
@@ -52,10 +83,55 @@ public class JSONTokener {
      *
      */
     public JSONTokener(Reader reader, JSONParserConfiguration jsonParserConfiguration) {
+        this(requireReader(reader), new char[BUFFER_SIZE], 0, 0, jsonParserConfiguration);
+    }
+
+    /**
+     * Construct a JSONTokener that scans a character array in place. The
+     * array is not copied, so it must not be modified while the tokener is in use.
+     *
+     * @param source the source.
+     */
+    public JSONTokener(char[] source) {
+        this(source, new JSONParserConfiguration());
+    }
+
+    /**
+     * Construct a JSONTokener that scans a character array in place with a given
+     * JSONParserConfiguration. The array is not copied, so it must not be modified
+     * while the tokener is in use.
+     *
+     * @param source the source.
+     * @param jsonParserConfiguration A JSONParserConfiguration instance that controls the behavior of the parser.
+     */
+    public JSONTokener(char[] source, JSONParserConfiguration jsonParserConfiguration) {
+        this(source, 0, source.length, jsonParserConfiguration);
+    }
+
+    /**
+     * Construct a JSONTokener that scans a range of a character array in place with
+     * a given JSONParserConfiguration. The array is not copied, so it must not be
+     * modified while the tokener is in use. Positions reported in error messages
+     * are relative to <code>offset</code>.
+     *
+     * @param source the source.
+     * @param offset index of the first character to scan.
+     * @param length number of characters to scan.
+     * @param jsonParserConfiguration A JSONParserConfiguration instance that controls the behavior of the parser.
+     * @throws IndexOutOfBoundsException if the range is not inside the array.
+     */
+    public JSONTokener(char[] source, int offset, int length, JSONParserConfiguration jsonParserConfiguration) {
+        this(null, source, offset, checkRange(source, offset, length), jsonParserConfiguration);
+    }
+
+    private JSONTokener(Reader reader, char[] buffer, int position, int limit,
+            JSONParserConfiguration jsonParserConfiguration) {
         this.jsonParserConfiguration = jsonParserConfiguration;
-        this.reader = reader.markSupported()
-                ? reader
-                        : new BufferedReader(reader);
+        this.reader = reader;
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+        this.mark = -1;
         this.eof = false;
         this.usePrevious = false;
         this.previous = 0;
@@ -65,6 +141,30 @@ public class JSONTokener {
         this.line = 1;
     }
 
+    private static Reader requireReader(Reader reader) {
+        if (reader == null) {
+            throw new NullPointerException("reader");
+        }
+        return reader;
+    }
+
+    private static int checkRange(char[] source, int offset, int length) {
+        checkRange(source.length, offset, length);
+        return offset + length;
+    }
+
+    private static int checkRange(byte[] source, int offset, int length) {
+        checkRange(source.length, offset, length);
+        return offset;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length
+                    + ", array length " + arrayLength);
+        }
+    }
+
     /**
      * Construct a JSONTokener from an InputStream. The caller must close the input stream.
      * @param inputStream The source.
@@ -79,9 +179,92 @@ public class JSONTokener {
      * @param jsonParserConfiguration A JSONParserConfiguration instance that controls the behavior of the parser.
      */
     public JSONTokener(InputStream inputStream, JSONParserConfiguration jsonParserConfiguration) {
-        this(new InputStreamReader(inputStream, Charset.forName("UTF-8")), jsonParserConfiguration);
+        this(new Utf8Reader(inputStream), jsonParserConfiguration);
     }
 
+    /**
+     * Construct a JSONTokener from UTF-8 encoded bytes. The bytes are decoded
+     * into the tokener's buffer as it is scanned, without a CharsetDecoder,
+     * and runs of ASCII bytes are copied directly. The array is not copied,
+     * so it must not be modified while the tokener is in use.
+     *
+     * @param source the source.
+     */
+    public JSONTokener(byte[] source) {
+        this(source, 0, source.length, new JSONParserConfiguration());
+    }
+
+    /**
+     * Construct a JSONTokener from a range of UTF-8 encoded bytes with a given
+     * JSONParserConfiguration. The array is not copied, so it must not be
+     * modified while the tokener is in use.
+     *
+     * @param source the source.
+     * @param offset index of the first byte to scan.
+     * @param length number of bytes to scan.
+     * @param jsonParserConfiguration A JSONParserConfiguration instance that controls the behavior of the parser.
+     * @throws IndexOutOfBoundsException if the range is not inside the array.
+     */
+    public JSONTokener(byte[] source, int offset, int length, JSONParserConfiguration jsonParserConfiguration) {
+        this(new Utf8Reader(source, checkRange(source, offset, length), length), jsonParserConfiguration);
+    }
+
+    /**
+     * Construct a JSONTokener from the UTF-8 encoded bytes between the
+     * position and the limit of a heap or direct ByteBuffer. The position of
+     * the buffer is not changed, and its content must not be modified while
+     * the tokener is in use.
+     *
+     * @param source the source.
+     */
+    public JSONTokener(ByteBuffer source) {
+        this(source, new JSONParserConfiguration());
+    }
+
+    /**
+     * Construct a JSONTokener from the UTF-8 encoded bytes between the
+     * position and the limit of a heap or direct ByteBuffer with a given
+     * JSONParserConfiguration. The position of the buffer is not changed, and
+     * its content must not be modified while the tokener is in use.
+     *
+     * @param source the source.
+     * @param jsonParserConfiguration A JSONParserConfiguration instance that controls the behavior of the parser.
+     */
+    public JSONTokener(ByteBuffer source, JSONParserConfiguration jsonParserConfiguration) {
+        this(new Utf8Reader(source), jsonParserConfiguration);
+    }
+
+
+    /**
+     * Construct a JSONTokener that reads a UTF-8 encoded file mapped into
+     * memory. The file is mapped in windows of up to 256 MB, so files of any
+     * size can be read, and each window is decoded through a small heap
+     * buffer instead of read calls. The caller must close the tokener to
+     * close the file.
+     *
+     * @param path the file.
+     * @return the tokener.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static JSONTokener fromPath(Path path) throws IOException {
+        return fromPath(path, new JSONParserConfiguration());
+    }
+
+    /**
+     * Construct a JSONTokener that reads a UTF-8 encoded file mapped into
+     * memory, with a given JSONParserConfiguration. The caller must close the
+     * tokener to close the file.
+     *
+     * @param path the file.
+     * @param jsonParserConfiguration A JSONParserConfiguration instance that controls the behavior of the parser.
+     * @return the tokener.
+     * @throws IOException if the file cannot be opened or mapped.
+     * @see #fromPath(Path)
+     */
+    public static JSONTokener fromPath(Path path, JSONParserConfiguration jsonParserConfiguration)
+            throws IOException {
+        return new JSONTokener(Utf8Reader.map(path), jsonParserConfiguration);
+    }
 
     /**
      * Construct a JSONTokener from a string.
@@ -89,16 +272,16 @@ public class JSONTokener {
      * @param source A source string.
      */
     public JSONTokener(String source) {
-        this(new StringReader(source));
+        this(source, new JSONParserConfiguration());
     }
 
     /**
-     * Construct a JSONTokener from an InputStream. The caller must close the input stream.
+     * Construct a JSONTokener from a string.
      * @param source The source.
      * @param jsonParserConfiguration A JSONParserConfiguration instance that controls the behavior of the parser.
      */
     public JSONTokener(String source, JSONParserConfiguration jsonParserConfiguration) {
-        this(new StringReader(source), jsonParserConfiguration);
+        this(source.toCharArray(), jsonParserConfiguration);
     }
 
     /**
@@ -132,6 +315,7 @@ public class JSONTokener {
             throw new JSONException("Stepping back two steps is not supported");
         }
         this.decrementIndexes();
+        this.position--;
         this.usePrevious = true;
         this.eof = false;
     }
@@ -186,23 +370,14 @@ public class JSONTokener {
      *  or backward while checking for more data.
      */
     public boolean more() throws JSONException {
-        if(this.usePrevious) {
-            return true;
-        }
-        try {
-            this.reader.mark(1);
-        } catch (IOException e) {
-            throw new JSONException("Unable to preserve stream position", e);
+        if (this.position >= this.limit && !this.fill()) {
+            this.eof = true;
+            return false;
         }
-        try {
-            // -1 is EOF, but next() can not consume the null character '\0'
-            if(this.reader.read() <= 0) {
-                this.eof = true;
-                return false;
-            }
-            this.reader.reset();
-        } catch (IOException e) {
-            throw new JSONException("Unable to read the next character from the stream", e);
+        // next() can not consume the null character '\0'
+        if (this.buffer[this.position] == 0) {
+            this.eof = true;
+            return false;
         }
         return true;
     }
@@ -215,24 +390,78 @@ public class JSONTokener {
      * @throws JSONException Thrown if there is an error reading the source string.
      */
     public char next() throws JSONException {
-        int c;
-        if (this.usePrevious) {
-            this.usePrevious = false;
-            c = this.previous;
-        } else {
-            try {
-                c = this.reader.read();
-            } catch (IOException exception) {
-                throw new JSONException(exception);
-            }
+        this.usePrevious = false;
+        if (this.position >= this.limit && !this.fill()) {
+            this.eof = true;
+            return 0;
         }
-        if (c <= 0) { // End of stream
+        char c = this.buffer[this.position++];
+        if (c == 0) {
             this.eof = true;
             return 0;
         }
         this.incrementIndexes(c);
-        this.previous = (char) c;
-        return this.previous;
+        this.previous = c;
+        return c;
+    }
+
+    /**
+     * Read more characters from the reader into the buffer. To make room, the
+     * characters before the mark are discarded, or when there is no mark, the
+     * characters before the last one returned, which {@link #back()} may still need.
+     *
+     * @return true if characters were added to the buffer, false at the end of the input.
+     * @throws JSONException Thrown if there is an error reading the source.
+     */
+    private boolean fill() throws JSONException {
+        if (this.reader == null) {
+            return false;
+        }
+        int keep = this.mark >= 0 ? this.mark : Math.max(this.position - 1, 0);
+        if (keep > 0) {
+            System.arraycopy(this.buffer, keep, this.buffer, 0, this.limit - keep);
+            this.position -= keep;
+            this.limit -= keep;
+            if (this.mark >= 0) {
+                this.mark -= keep;
+            }
+        }
+        if (this.limit == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        } else if (this.mark < 0 && this.buffer.length > BUFFER_SIZE && this.limit < BUFFER_SIZE) {
+            // the buffer grew for a mark that is gone
+            this.buffer = Arrays.copyOf(this.buffer, BUFFER_SIZE);
+        }
+        try {
+            int count;
+            do {
+                count = this.reader.read(this.buffer, this.limit, this.buffer.length - this.limit);
+            } while (count == 0);
+            if (count < 0) {
+                return false;
+            }
+            this.limit += count;
+            return true;
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+    }
+
+    /**
+     * Consume the buffered characters up to <code>end</code>, updating the
+     * indexes in bulk. The characters must not contain line terminators.
+     *
+     * @param end the buffer position of the next character to return.
+     */
+    private void advanceInLine(int end) {
+        int count = end - this.position;
+        if (count > 0) {
+            this.index += count;
+            this.character += count;
+            this.previous = this.buffer[end - 1];
+            this.position = end;
+            this.usePrevious = false;
+        }
     }
 
     /**
@@ -340,10 +569,64 @@ public class JSONTokener {
      * @throws JSONException Unterminated string.
      */
     public String nextString(char quote) throws JSONException {
-        char c;
-        StringBuilder sb = new StringBuilder();
+        return this.nextString(quote, null);
+    }
+
+    /**
+     * Return the characters up to the next close quote character, taking
+     * the result from a key cache when one is given.
+     *
+     * @param quote The quoting character.
+     * @param keyCache The cache of canonical strings, or null.
+     * @return      A String.
+     * @throws JSONException Unterminated string.
+     */
+    private String nextString(char quote, KeyCache keyCache) throws JSONException {
+        // common case: no escapes, so the string is taken straight from the buffer
+        int start = this.position;
+        int end = start;
         for (;;) {
-            c = this.next();
+            if (end >= this.limit) {
+                // keep the string scanned so far in the buffer while reading more input
+                this.mark = start;
+                boolean filled = this.fill();
+                end -= start - this.mark;
+                start = this.mark;
+                this.mark = -1;
+                if (!filled) {
+                    break;
+                }
+                continue;
+            }
+            char c = this.buffer[end];
+            if (c == quote) {
+                String string = keyCache == null
+                        ? new String(this.buffer, start, end - start)
+                        : keyCache.get(this.buffer, start, end - start);
+                this.advanceInLine(end + 1);
+                return string;
+            }
+            if (c == '\\' || c == '\n' || c == '\r' || c == 0) {
+                break;
+            }
+            end++;
+        }
+
+        this.scratchLength = 0;
+        for (;;) {
+            // copy the run of plain characters straight from the buffer
+            start = this.position;
+            end = start;
+            while (end < this.limit) {
+                char c = this.buffer[end];
+                if (c == quote || c == '\\' || c == '\n' || c == '\r' || c == 0) {
+                    break;
+                }
+                end++;
+            }
+            this.appendScratch(this.buffer, start, end - start);
+            this.advanceInLine(end);
+            char c = this.next();
             switch (c) {
             case 0:
             case '\n':
@@ -354,34 +637,28 @@ public class JSONTokener {
                 c = this.next();
                 switch (c) {
                 case 'b':
-                    sb.append('\b');
+                    this.appendScratch('\b');
                     break;
                 case 't':
-                    sb.append('\t');
+                    this.appendScratch('\t');
                     break;
                 case 'n':
-                    sb.append('\n');
+                    this.appendScratch('\n');
                     break;
                 case 'f':
-                    sb.append('\f');
+                    this.appendScratch('\f');
                     break;
                 case 'r':
-                    sb.append('\r');
+                    this.appendScratch('\r');
                     break;
                 case 'u':
-                    String next = this.next(4);
-                    try {
-                        sb.append((char)Integer.parseInt(next, 16));
-                    } catch (NumberFormatException e) {
-                        throw this.syntaxError("Illegal escape. " +
-                                "\\u must be followed by a 4 digit hexadecimal number. \\" + next + " is not valid.", e);
-                    }
+                    this.appendScratch(this.nextUnicodeEscape());
                     break;
                 case '"':
                 case '\'':
                 case '\\':
                 case '/':
-                    sb.append(c);
+                    this.appendScratch(c);
                     break;
                 default:
                     throw this.syntaxError("Illegal escape. Escape sequence  \\" + c + " is not valid.");
@@ -389,13 +666,61 @@ public class JSONTokener {
                 break;
             default:
                 if (c == quote) {
-                    return sb.toString();
+                    return keyCache == null
+                            ? new String(this.scratch, 0, this.scratchLength)
+                            : keyCache.get(this.scratch, 0, this.scratchLength);
                 }
-                sb.append(c);
+                this.appendScratch(c);
             }
         }
     }
 
+    /**
+     * Decode the four hexadecimal digits that follow a <code>\\u</code> escape.
+     *
+     * @return the decoded character.
+     * @throws JSONException if there are fewer than four characters left or
+     *  they are not all hexadecimal digits.
+     */
+    private char nextUnicodeEscape() throws JSONException {
+        char[] digits = this.hexDigits;
+        int value = 0;
+        boolean valid = true;
+        for (int i = 0; i < 4; i++) {
+            char c = this.next();
+            if (this.end()) {
+                throw this.syntaxError("Substring bounds error");
+            }
+            digits[i] = c;
+            int hex = dehexchar(c);
+            if (hex < 0) {
+                valid = false;
+            }
+            value = (value << 4) | hex;
+        }
+        if (!valid) {
+            throw this.syntaxError("Illegal escape. " +
+                    "\\u must be followed by a 4 digit hexadecimal number. \\" + new String(digits) + " is not valid.");
+        }
+        return (char) value;
+    }
+
+    private void appendScratch(char c) {
+        if (this.scratchLength == this.scratch.length) {
+            this.scratch = Arrays.copyOf(this.scratch, this.scratch.length * 2);
+        }
+        this.scratch[this.scratchLength++] = c;
+    }
+
+    private void appendScratch(char[] source, int offset, int length) {
+        int required = this.scratchLength + length;
+        if (required > this.scratch.length) {
+            this.scratch = Arrays.copyOf(this.scratch, Math.max(required, this.scratch.length * 2));
+        }
+        System.arraycopy(source, offset, this.scratch, this.scratchLength, length);
+        this.scratchLength = required;
+    }
+
 
     /**
      * Get the text up but not including the specified character or the
@@ -408,14 +733,29 @@ public class JSONTokener {
     public String nextTo(char delimiter) throws JSONException {
         StringBuilder sb = new StringBuilder();
         for (;;) {
-            char c = this.next();
-            if (c == delimiter || c == 0 || c == '\n' || c == '\r') {
-                if (c != 0) {
-                    this.back();
+            int start = this.position;
+            int end = start;
+            while (end < this.limit) {
+                char c = this.buffer[end];
+                if (c == delimiter || c == 0 || c == '\n' || c == '\r') {
+                    break;
                 }
+                end++;
+            }
+            sb.append(this.buffer, start, end - start);
+            this.advanceInLine(end);
+            if (end < this.limit) {
+                if (this.buffer[end] == 0) {
+                    // consume the null character like next() does
+                    this.position++;
+                    this.eof = true;
+                }
+                return sb.toString().trim();
+            }
+            if (!this.fill()) {
+                this.eof = true;
                 return sb.toString().trim();
             }
-            sb.append(c);
         }
     }
 
@@ -429,18 +769,31 @@ public class JSONTokener {
      *  for the delimiter
      */
     public String nextTo(String delimiters) throws JSONException {
-        char c;
         StringBuilder sb = new StringBuilder();
         for (;;) {
-            c = this.next();
-            if (delimiters.indexOf(c) >= 0 || c == 0 ||
-                    c == '\n' || c == '\r') {
-                if (c != 0) {
-                    this.back();
+            int start = this.position;
+            int end = start;
+            while (end < this.limit) {
+                char c = this.buffer[end];
+                if (delimiters.indexOf(c) >= 0 || c == 0 || c == '\n' || c == '\r') {
+                    break;
+                }
+                end++;
+            }
+            sb.append(this.buffer, start, end - start);
+            this.advanceInLine(end);
+            if (end < this.limit) {
+                if (this.buffer[end] == 0) {
+                    // consume the null character like next() does
+                    this.position++;
+                    this.eof = true;
                 }
                 return sb.toString().trim();
             }
-            sb.append(c);
+            if (!this.fill()) {
+                this.eof = true;
+                return sb.toString().trim();
+            }
         }
     }
 
@@ -473,9 +826,23 @@ public class JSONTokener {
         return nextSimpleValue(c);
     }
 
-    Object nextSimpleValue(char c) {
-        String string;
+    /**
+     * Get the key of a JSONObject member, whose first character has already
+     * been read. Quoted keys go through the key cache of the configuration,
+     * if any; other keys are read like a simple value.
+     *
+     * @param c the first character of the key.
+     * @return the key.
+     * @throws JSONException If syntax error.
+     */
+    String nextKey(char c) throws JSONException {
+        if (c == '"' || (c == '\'' && (jsonParserConfiguration == null || !jsonParserConfiguration.isStrictMode()))) {
+            return this.nextString(c, jsonParserConfiguration == null ? null : jsonParserConfiguration.keyCache);
+        }
+        return this.nextSimpleValue(c).toString();
+    }
 
+    Object nextSimpleValue(char c) {
         // Strict mode only allows strings with explicit double quotes
         if (jsonParserConfiguration != null &&
                 jsonParserConfiguration.isStrictMode() &&
@@ -494,23 +861,56 @@ public class JSONTokener {
          * is allowed to also accept non-standard forms.
          *
          * Accumulate characters until we reach the end of the text or a
-         * formatting character.
+         * formatting character. The text is scanned in the buffer, starting
+         * with the character already read.
          */
 
-        StringBuilder sb = new StringBuilder();
-        while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
-            sb.append(c);
-            c = this.next();
+        if (c < ' ' || isFormattingCharacter(c)) {
+            if (!this.eof) {
+                this.back();
+            }
+            throw this.syntaxError("Missing value");
         }
-        if (!this.eof) {
-            this.back();
+        int start = this.position - 1;
+        int end = this.position;
+        for (;;) {
+            if (end >= this.limit) {
+                // keep the token scanned so far in the buffer while reading more input
+                this.mark = start;
+                boolean filled = this.fill();
+                end -= start - this.mark;
+                start = this.mark;
+                this.mark = -1;
+                if (!filled) {
+                    this.advanceInLine(end);
+                    this.eof = true;
+                    break;
+                }
+                continue;
+            }
+            c = this.buffer[end];
+            if (c < ' ' || isFormattingCharacter(c)) {
+                this.advanceInLine(end);
+                if (c == 0) {
+                    // consume the null character like next() does
+                    this.position++;
+                    this.eof = true;
+                }
+                break;
+            }
+            end++;
         }
 
-        string = sb.toString().trim();
-        if ("".equals(string)) {
+        while (start < end && this.buffer[start] <= ' ') {
+            start++;
+        }
+        while (end > start && this.buffer[end - 1] <= ' ') {
+            end--;
+        }
+        if (start == end) {
             throw this.syntaxError("Missing value");
         }
-        Object obj = JSONObject.stringToValue(string);
+        Object obj = this.unquotedValue(start, end - start);
         // Strict mode only allows strings with explicit double quotes
         if (jsonParserConfiguration != null &&
                 jsonParserConfiguration.isStrictMode() &&
@@ -521,6 +921,141 @@ public class JSONTokener {
     }
 
 
+    /**
+     * Convert an unquoted token held in the buffer. The literals and ordinary
+     * numbers are converted from the characters; anything else is left to
+     * {@link JSONObject#stringToValue(String)}.
+     *
+     * @param start the buffer position of the token.
+     * @param length the length of the token.
+     * @return A simple JSON value.
+     */
+    private Object unquotedValue(int start, int length) {
+        char[] chars = this.buffer;
+        char initial = chars[start];
+        if (length == 4) {
+            if (initial == 't' && chars[start + 1] == 'r' && chars[start + 2] == 'u' && chars[start + 3] == 'e') {
+                return Boolean.TRUE;
+            }
+            if (initial == 'n' && chars[start + 1] == 'u' && chars[start + 2] == 'l' && chars[start + 3] == 'l') {
+                return JSONObject.NULL;
+            }
+        } else if (length == 5 && initial == 'f' && chars[start + 1] == 'a' && chars[start + 2] == 'l'
+                && chars[start + 3] == 's' && chars[start + 4] == 'e') {
+            return Boolean.FALSE;
+        }
+        if ((initial >= '0' && initial <= '9') || initial == '-') {
+            Number number = NumberParser.parse(chars, start, length,
+                    jsonParserConfiguration != null && jsonParserConfiguration.isUseDoubleForDecimals());
+            if (number != null) {
+                return number;
+            }
+        }
+        return JSONObject.stringToValue(new String(chars, start, length));
+    }
+
+    /**
+     * @return true if the character ends an unquoted token.
+     */
+    private static boolean isFormattingCharacter(char c) {
+        switch (c) {
+        case ',':
+        case ':':
+        case ']':
+        case '}':
+        case '/':
+        case '\\':
+        case '"':
+        case '[':
+        case '{':
+        case ';':
+        case '=':
+        case '#':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+
+    /**
+     * Skip the rest of an object or array whose opening bracket has already
+     * been read, up to and including the matching closing bracket. Strings
+     * are skipped without being built; other characters are not validated.
+     *
+     * @throws JSONException if the input ends before the closing bracket.
+     */
+    void skipContainer() throws JSONException {
+        int depth = 1;
+        for (;;) {
+            if (this.position >= this.limit && !this.fill()) {
+                this.eof = true;
+                throw this.syntaxError("Unterminated object or array");
+            }
+            char c = this.buffer[this.position];
+            switch (c) {
+            case '"':
+            case '\'':
+                this.next();
+                this.skipString(c);
+                break;
+            case '{':
+            case '[':
+                depth++;
+                this.next();
+                break;
+            case '}':
+            case ']':
+                this.next();
+                if (--depth == 0) {
+                    return;
+                }
+                break;
+            default:
+                if (this.next() == 0) {
+                    throw this.syntaxError("Unterminated object or array");
+                }
+            }
+        }
+    }
+
+    /**
+     * Skip the characters up to and including the next close quote
+     * character, without building the string.
+     *
+     * @param quote The quoting character.
+     * @throws JSONException Unterminated string.
+     */
+    private void skipString(char quote) throws JSONException {
+        for (;;) {
+            int end = this.position;
+            while (end < this.limit) {
+                char c = this.buffer[end];
+                if (c == quote || c == '\\' || c == '\n' || c == '\r' || c == 0) {
+                    break;
+                }
+                end++;
+            }
+            this.advanceInLine(end);
+            char c = this.next();
+            switch (c) {
+            case 0:
+            case '\n':
+            case '\r':
+                throw this.syntaxError("Unterminated string. " +
+                        "Character with int code " + (int) c + " is not allowed within a quoted string.");
+            case '\\':
+                this.next();
+                break;
+            default:
+                if (c == quote) {
+                    return;
+                }
+            }
+        }
+    }
+
+
     /**
      * Skip characters until the next character is the requested character.
      * If the requested character is not found, no characters are skipped.
@@ -528,34 +1063,211 @@ public class JSONTokener {
      * @return The requested character, or zero if the requested character
      * is not found.
      * @throws JSONException Thrown if there is an error while searching
-     *  for the to character
+     *  for the to character, or if the character is not found more than
+     *  1,000,000 characters into Reader input, which cannot be rolled back
      */
     public char skipTo(char to) throws JSONException {
-        char c;
-        try {
-            long startIndex = this.index;
-            long startCharacter = this.character;
-            long startLine = this.line;
-            this.reader.mark(1000000);
-            do {
-                c = this.next();
-                if (c == 0) {
-                    // in some readers, reset() may throw an exception if
-                    // the remaining portion of the input is greater than
-                    // the mark size (1,000,000 above).
-                    this.reader.reset();
-                    this.index = startIndex;
-                    this.character = startCharacter;
-                    this.line = startLine;
-                    return 0;
+        long startIndex = this.index;
+        long startCharacter = this.character;
+        long startLine = this.line;
+        long startCharacterPreviousLine = this.characterPreviousLine;
+        char startPrevious = this.previous;
+        boolean startUsePrevious = this.usePrevious;
+        // keep the start of the scan, and the character before it for back(),
+        // in the buffer so that a failed search can be rolled back
+        int back = this.position > 0 ? 1 : 0;
+        this.mark = this.position - back;
+        long rollbackIndex = startIndex + MARK_LIMIT;
+        for (;;) {
+            if (this.position >= this.limit) {
+                if (this.mark >= 0 && this.reader != null && this.index > rollbackIndex) {
+                    // too far to roll back: stop keeping the input, as a reader mark would
+                    this.mark = -1;
                 }
-            } while (c != to);
-            this.reader.mark(1);
-        } catch (IOException exception) {
-            throw new JSONException(exception);
+                if (!this.fill()) {
+                    break;
+                }
+            }
+            char c = this.buffer[this.position];
+            if (c == 0) {
+                break;
+            }
+            if (c == to) {
+                this.mark = -1;
+                return c;
+            }
+            this.position++;
+            this.incrementIndexes(c);
+            this.previous = c;
+            this.usePrevious = false;
         }
-        this.back();
-        return c;
+        if (this.mark < 0) {
+            throw new JSONException(new IOException("Mark invalid"));
+        }
+        this.position = this.mark + back;
+        this.mark = -1;
+        this.index = startIndex;
+        this.character = startCharacter;
+        this.line = startLine;
+        this.characterPreviousLine = startCharacterPreviousLine;
+        this.previous = startPrevious;
+        this.usePrevious = startUsePrevious;
+        return 0;
+    }
+
+    /**
+     * Skip characters until past the requested string, searching the buffer
+     * instead of reading one character at a time. A single character is
+     * looked for with a plain scan, a longer string with the
+     * Boyer-Moore-Horspool search, whose shift table is kept for the next
+     * search of the same string. If the string is not found, all the input is
+     * consumed.
+     *
+     * @param to A string to skip past.
+     * @return true if the string was found, false at the end of the input.
+     * @throws JSONException Thrown if there is an error reading the source.
+     */
+    boolean scanPast(String to) throws JSONException {
+        int length = to.length();
+        if (length == 0) {
+            return true;
+        }
+        if (length == 1) {
+            char target = to.charAt(0);
+            for (;;) {
+                char[] b = this.buffer;
+                int end = this.limit;
+                int i = this.position;
+                while (i < end && b[i] != target) {
+                    i++;
+                }
+                if (i < end) {
+                    return this.advance(i + 1);
+                }
+                if (!this.advance(end) || !this.fill()) {
+                    this.eof = true;
+                    return false;
+                }
+            }
+        }
+        int[] shifts = this.shifts(to);
+        char last = to.charAt(length - 1);
+        for (;;) {
+            char[] b = this.buffer;
+            int end = this.limit;
+            int i = this.position + length - 1;
+            while (i < end) {
+                char c = b[i];
+                if (c == last && matchesAt(b, i - length + 1, to, length - 1)) {
+                    return this.advance(i + 1);
+                }
+                i += c < shifts.length ? shifts[c] : shifts[0];
+            }
+            // keep the characters that may start a match for the next fill
+            if (!this.advance(Math.max(this.position, end - length + 1))) {
+                // stopped at a null character
+                return false;
+            }
+            if (!this.fill()) {
+                this.advance(this.limit);
+                this.eof = true;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return true if the first <code>count</code> characters of the string
+     *         are in the buffer from <code>start</code>.
+     */
+    private static boolean matchesAt(char[] b, int start, String to, int count) {
+        for (int j = 0; j < count; j++) {
+            if (b[start + j] != to.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The Horspool shift table of a string: by how much the search may move
+     * when the character under the last one of the string is a given ASCII
+     * character. Entry 0, which the null character never uses since it ends
+     * the input, is the shift for the characters above ASCII.
+     */
+    private int[] shifts(String to) {
+        if (to.equals(this.shiftsFor)) {
+            return this.shifts;
+        }
+        int length = to.length();
+        int[] table = new int[128];
+        Arrays.fill(table, length);
+        for (int j = 0; j < length - 1; j++) {
+            char c = to.charAt(j);
+            int shift = length - 1 - j;
+            if (c < 128) {
+                table[c] = shift;
+            } else {
+                table[0] = Math.min(table[0], shift);
+            }
+        }
+        this.shiftsFor = to;
+        this.shifts = table;
+        return table;
+    }
+
+    /**
+     * Consume the buffered characters up to <code>end</code>, updating the
+     * indexes as {@link #next()} would. A null character ends the input: it
+     * is consumed and the rest is not.
+     *
+     * @param end the buffer position of the next character to return.
+     * @return false if a null character was met.
+     */
+    private boolean advance(int end) {
+        char[] b = this.buffer;
+        char previous = this.previous;
+        long character = this.character;
+        long line = this.line;
+        long characterPreviousLine = this.characterPreviousLine;
+        int i = this.position;
+        boolean ended = false;
+        for (; i < end; i++) {
+            char c = b[i];
+            if (c == 0) {
+                ended = true;
+                break;
+            }
+            if (c == '\r') {
+                line++;
+                characterPreviousLine = character;
+                character = 0;
+            } else if (c == '\n') {
+                if (previous != '\r') {
+                    line++;
+                    characterPreviousLine = character;
+                }
+                character = 0;
+            } else {
+                character++;
+            }
+            previous = c;
+        }
+        if (i > this.position) {
+            this.index += i - this.position;
+            this.previous = previous;
+            this.usePrevious = false;
+        }
+        this.character = character;
+        this.line = line;
+        this.characterPreviousLine = characterPreviousLine;
+        if (ended) {
+            this.position = i + 1;
+            this.eof = true;
+            return false;
+        }
+        this.position = i;
+        return true;
     }
 
     /**
@@ -0,0 +1,258 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.json.JSONObject.JSONNode;
+
+/**
+ * The spliterator behind {@link JSONObject#toStream()}. It walks the tree
+ * depth first with an explicit stack of open containers, so the depth of the
+ * tree does not use the Java stack. The path of a leaf is kept as a chain of
+ * segments shared with its siblings and is only turned into a string when
+ * {@link JSONNode#getPath()} is called.
+ * <p>
+ * {@link #trySplit()} hands out the first half of the unvisited children of
+ * the outermost container that has at least two of them, so a parallel
+ * stream over a large object or array is divided among its members.
+ */
+final class JSONTreeSpliterator implements Spliterator<JSONNode> {
+
+    /**
+     * One step of a path: <code>/key</code> or <code>[index]</code> after the
+     * path of its parent. The root has no segment.
+     */
+    static final class Segment {
+        private final Segment parent;
+        private final String key;
+        private final int index;
+
+        Segment(Segment parent, String key, int index) {
+            this.parent = parent;
+            this.key = key;
+            this.index = index;
+        }
+
+        /**
+         * @return the path from the root, built without recursion.
+         */
+        String path() {
+            int depth = 0;
+            for (Segment s = this; s != null; s = s.parent) {
+                depth++;
+            }
+            Segment[] segments = new Segment[depth];
+            for (Segment s = this; s != null; s = s.parent) {
+                segments[--depth] = s;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (Segment s : segments) {
+                if (s.key != null) {
+                    sb.append('/').append(s.key);
+                } else {
+                    sb.append('[').append(s.index).append(']');
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /** An open container and the range of its children still to visit. */
+    private static final class Frame {
+        final Segment segment;
+        final JSONArray array;
+        Iterator<Map.Entry<String, Object>> entries;
+        String[] keys;
+        Object[] values;
+        int next;
+        int end;
+
+        Frame(Segment segment, JSONObject object) {
+            this.segment = segment;
+            this.array = null;
+            this.entries = object.entrySet().iterator();
+            this.end = object.length();
+        }
+
+        Frame(Segment segment, JSONArray array, int next, int end) {
+            this.segment = segment;
+            this.array = array;
+            this.next = next;
+            this.end = end;
+        }
+
+        Frame(Segment segment, String[] keys, Object[] values, int next, int end) {
+            this.segment = segment;
+            this.array = null;
+            this.keys = keys;
+            this.values = values;
+            this.next = next;
+            this.end = end;
+        }
+
+        /**
+         * Replace the iterator of an object by arrays, so that its remaining
+         * members can be divided.
+         */
+        void detach() {
+            if (this.entries != null) {
+                int n = this.end - this.next;
+                String[] keys = new String[n];
+                Object[] values = new Object[n];
+                for (int i = 0; i < n; i++) {
+                    Map.Entry<String, Object> entry = this.entries.next();
+                    keys[i] = entry.getKey();
+                    values[i] = entry.getValue();
+                }
+                this.entries = null;
+                this.keys = keys;
+                this.values = values;
+                this.end = n;
+                this.next = 0;
+            }
+        }
+    }
+
+    /** The open containers, the outermost first. */
+    private ArrayList<Frame> stack = new ArrayList<Frame>();
+
+    JSONTreeSpliterator(JSONObject root) {
+        this.stack.add(new Frame(null, root));
+    }
+
+    private JSONTreeSpliterator(ArrayList<Frame> stack) {
+        this.stack = stack;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super JSONNode> action) {
+        while (!this.stack.isEmpty()) {
+            Frame frame = this.stack.get(this.stack.size() - 1);
+            if (frame.next == frame.end) {
+                this.stack.remove(this.stack.size() - 1);
+                continue;
+            }
+            Segment segment;
+            Object value;
+            if (frame.array != null) {
+                segment = new Segment(frame.segment, null, frame.next);
+                value = frame.array.opt(frame.next);
+            } else if (frame.entries != null) {
+                Map.Entry<String, Object> entry = frame.entries.next();
+                segment = new Segment(frame.segment, entry.getKey(), 0);
+                value = entry.getValue();
+            } else {
+                segment = new Segment(frame.segment, frame.keys[frame.next], 0);
+                value = frame.values[frame.next];
+            }
+            frame.next++;
+            if (!this.open(segment, value)) {
+                action.accept(new JSONNode(segment, value));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<JSONNode> trySplit() {
+        this.descend();
+        for (int i = 0; i < this.stack.size(); i++) {
+            Frame frame = this.stack.get(i);
+            int remaining = frame.end - frame.next;
+            if (remaining < 2) {
+                continue;
+            }
+            frame.detach();
+            int mid = frame.next + remaining / 2;
+            // the prefix takes the containers being visited and the first half
+            ArrayList<Frame> prefix = new ArrayList<Frame>(this.stack.size() - i);
+            if (frame.array != null) {
+                prefix.add(new Frame(frame.segment, frame.array, frame.next, mid));
+            } else {
+                prefix.add(new Frame(frame.segment, frame.keys, frame.values, frame.next, mid));
+            }
+            prefix.addAll(this.stack.subList(i + 1, this.stack.size()));
+            this.stack.subList(i + 1, this.stack.size()).clear();
+            frame.next = mid;
+            return new JSONTreeSpliterator(prefix);
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        this.descend();
+        long size = 0;
+        for (Frame frame : this.stack) {
+            size += frame.end - frame.next;
+        }
+        return size;
+    }
+
+    /**
+     * Push a frame for a container.
+     *
+     * @return false if the value is a leaf.
+     */
+    private boolean open(Segment segment, Object value) {
+        if (value instanceof JSONObject) {
+            this.stack.add(new Frame(segment, (JSONObject) value));
+            return true;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            this.stack.add(new Frame(segment, array, 0, array.length()));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drop the finished containers at the top of the stack and open a
+     * container that is the only child left of its parent, so that a document
+     * such as <code>{"data":[...]}</code> can be divided and sized by the
+     * members of its array. Opening a container reports no leaf, so the order
+     * is kept.
+     */
+    private void descend() {
+        while (!this.stack.isEmpty()) {
+            Frame frame = this.stack.get(this.stack.size() - 1);
+            int remaining = frame.end - frame.next;
+            if (remaining == 0) {
+                this.stack.remove(this.stack.size() - 1);
+                continue;
+            }
+            if (remaining > 1) {
+                return;
+            }
+            frame.detach();
+            Segment segment;
+            Object value;
+            if (frame.array != null) {
+                segment = new Segment(frame.segment, null, frame.next);
+                value = frame.array.opt(frame.next);
+            } else {
+                segment = new Segment(frame.segment, frame.keys[frame.next], 0);
+                value = frame.values[frame.next];
+            }
+            if (!(value instanceof JSONObject) && !(value instanceof JSONArray)) {
+                return;
+            }
+            frame.next++;
+            this.open(segment, value);
+        }
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+}
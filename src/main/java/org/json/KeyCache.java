@@ -0,0 +1,140 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+/**
+ * A bounded cache that canonicalizes the keys produced by the parsers, so that
+ * documents with a repeated schema share one String instance per key name.
+ * <p>
+ * The cache is a two-way set associative table: each key hashes to a pair of
+ * slots, and a new key evicts the older key of its pair when both are taken.
+ * Lookups hash the raw characters and compare them with the cached entries
+ * before any String is created, so a hit allocates nothing. The table is
+ * shared by every parser using the same configuration and is safe for
+ * concurrent use without locking: slots hold immutable Strings, and a lost
+ * race only costs a cache miss.
+ */
+final class KeyCache {
+    /** Keys longer than this are rarely repeated and are not cached. */
+    static final int MAX_KEY_LENGTH = 64;
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param size the requested number of entries, rounded up to a power of two.
+     */
+    KeyCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+        if (capacity <= 0 || capacity > (1 << 20)) {
+            capacity = 1 << 20;
+        }
+        this.table = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return the number of entries in the cache.
+     */
+    int size() {
+        return this.table.length;
+    }
+
+    /**
+     * Get the canonical String for a range of characters.
+     *
+     * @param chars the characters.
+     * @param offset the index of the first character of the key.
+     * @param length the number of characters in the key.
+     * @return a String equal to the range.
+     */
+    String get(char[] chars, int offset, int length) {
+        if (length > MAX_KEY_LENGTH) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = spread(hash) & this.mask;
+        String cached = this.table[slot];
+        if (matches(cached, chars, offset, length)) {
+            return cached;
+        }
+        String other = this.table[slot ^ 1];
+        if (matches(other, chars, offset, length)) {
+            return other;
+        }
+        return this.add(slot, cached, new String(chars, offset, length));
+    }
+
+    /**
+     * Get the canonical String for a sequence of characters.
+     *
+     * @param chars the characters of the key.
+     * @return a String equal to the sequence.
+     */
+    String get(CharSequence chars) {
+        int length = chars.length();
+        if (length > MAX_KEY_LENGTH) {
+            return chars.toString();
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int slot = spread(hash) & this.mask;
+        String cached = this.table[slot];
+        if (matches(cached, chars)) {
+            return cached;
+        }
+        String other = this.table[slot ^ 1];
+        if (matches(other, chars)) {
+            return other;
+        }
+        return this.add(slot, cached, chars.toString());
+    }
+
+    /**
+     * Store a new key in its pair of slots, moving the key found in the first
+     * slot to the second one.
+     */
+    private String add(int slot, String first, String key) {
+        if (first != null) {
+            this.table[slot ^ 1] = first;
+        }
+        this.table[slot] = key;
+        return key;
+    }
+
+    private static boolean matches(String cached, char[] chars, int offset, int length) {
+        if (cached == null || cached.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String cached, CharSequence chars) {
+        int length = chars.length();
+        if (cached == null || cached.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != chars.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,151 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.math.BigDecimal;
+
+/**
+ * Converts number tokens straight from the characters of the tokener buffer.
+ * <p>
+ * Only the JSON number grammar is handled here, with at most 18 significant
+ * digits and a short exponent, which covers nearly all numbers found in
+ * practice. Such integers are accumulated in a long, and such decimals become
+ * a <code>BigDecimal</code> built from a long and a scale, or a
+ * <code>Double</code> when requested by the configuration. Anything else,
+ * including hex floats, leading zeros and large values, is left to
+ * {@link JSONObject#stringToValue(String)} by returning null.
+ */
+final class NumberParser {
+    /** Longest significand that always fits in a long. */
+    private static final int MAX_DIGITS = 18;
+
+    /** Longest exponent accepted, so that the scale always fits in an int. */
+    private static final int MAX_EXPONENT_DIGITS = 9;
+
+    /** Largest significand that a double represents exactly. */
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    /** Powers of ten that a double represents exactly. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {
+    }
+
+    /**
+     * Convert a number token.
+     *
+     * @param chars the characters.
+     * @param offset the index of the first character of the token.
+     * @param length the number of characters in the token.
+     * @param useDouble true to produce a Double rather than a BigDecimal for decimals.
+     * @return an Integer, Long, BigDecimal or Double, or null if the token must
+     *  be converted by {@link JSONObject#stringToValue(String)}.
+     */
+    static Number parse(char[] chars, int offset, int length, boolean useDouble) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (i < end && chars[i] == '-') {
+            negative = true;
+            i++;
+        }
+        int integerStart = i;
+        long significand = 0;
+        while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+            significand = significand * 10 + (chars[i++] - '0');
+        }
+        int integerDigits = i - integerStart;
+        if (integerDigits == 0 || integerDigits > MAX_DIGITS
+                || (integerDigits > 1 && chars[integerStart] == '0')) {
+            return null;
+        }
+        if (i == end) {
+            if (negative) {
+                if (significand == 0) {
+                    return Double.valueOf(-0.0);
+                }
+                significand = -significand;
+            }
+            if (significand >= Integer.MIN_VALUE && significand <= Integer.MAX_VALUE) {
+                return Integer.valueOf((int) significand);
+            }
+            return Long.valueOf(significand);
+        }
+
+        int fractionDigits = 0;
+        if (chars[i] == '.') {
+            i++;
+            int fractionStart = i;
+            while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+                significand = significand * 10 + (chars[i++] - '0');
+            }
+            fractionDigits = i - fractionStart;
+            if (fractionDigits == 0 || integerDigits + fractionDigits > MAX_DIGITS) {
+                return null;
+            }
+        }
+        int exponent = 0;
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '+' || chars[i] == '-')) {
+                negativeExponent = chars[i++] == '-';
+            }
+            int exponentStart = i;
+            while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+                exponent = exponent * 10 + (chars[i++] - '0');
+            }
+            int exponentDigits = i - exponentStart;
+            if (exponentDigits == 0 || exponentDigits > MAX_EXPONENT_DIGITS) {
+                return null;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        if (i != end) {
+            return null;
+        }
+
+        if (significand == 0 && negative) {
+            // BigDecimal has no negative zero
+            return Double.valueOf(-0.0);
+        }
+        int scale = fractionDigits - exponent;
+        if (useDouble) {
+            Double d = toDouble(significand, scale, chars, offset, length);
+            if (d != null) {
+                return negative ? Double.valueOf(-d.doubleValue()) : d;
+            }
+        }
+        return BigDecimal.valueOf(negative ? -significand : significand, scale);
+    }
+
+    /**
+     * Compute <code>significand * 10^-scale</code> with correct rounding.
+     * When both the significand and the power of ten are exact doubles, a
+     * single multiplication or division rounds correctly; otherwise the
+     * characters are handed to {@link Double#parseDouble(String)}.
+     *
+     * @return the value, or null if it overflows or underflows a double.
+     */
+    private static Double toDouble(long significand, int scale, char[] chars, int offset, int length) {
+        double value;
+        if (significand <= MAX_EXACT_DOUBLE && scale >= -22 && scale <= 22) {
+            value = scale >= 0
+                    ? significand / POWERS_OF_TEN[scale]
+                    : significand * POWERS_OF_TEN[-scale];
+        } else {
+            value = Math.abs(Double.parseDouble(new String(chars, offset, length)));
+        }
+        if (Double.isInfinite(value) || (value == 0 && significand != 0)) {
+            return null;
+        }
+        return Double.valueOf(value);
+    }
+}
@@ -0,0 +1,314 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The list of a JSONArray parsed with
+ * {@link JSONParserConfiguration#withCompactNumericArrays(boolean)}. While
+ * all its elements are numbers of one kind it keeps them in a primitive
+ * array instead of one boxed object each:
+ * <ul>
+ * <li>Integers in an int[];</li>
+ * <li>Integers and Longs, as the parser makes them, in a long[]: a Long that
+ * fits in an int is not accepted, so {@link #get(int)} can return an Integer
+ * for every value in the int range;</li>
+ * <li>Doubles in a double[].</li>
+ * </ul>
+ * BigDecimals are not compacted: they would have to be created again on
+ * every read.
+ * The first element that does not fit moves all the elements into an
+ * ArrayList, which is then used for good. The list behaves as an ArrayList
+ * of the boxed values either way.
+ */
+final class NumericArrayList extends AbstractList<Object> implements RandomAccess {
+
+    private static final int EMPTY = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int GENERIC = 4;
+
+    /** How the elements are kept. */
+    private int kind;
+
+    private int size;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    /** The elements once the list is generic. */
+    private ArrayList<Object> list;
+
+    /** The length of the first array. */
+    private final int initialCapacity;
+
+    /**
+     * @param initialCapacity the number of elements to make room for.
+     */
+    NumericArrayList(int initialCapacity) {
+        this.kind = EMPTY;
+        this.initialCapacity = Math.max(1, initialCapacity);
+    }
+
+    /**
+     * Copy another list.
+     */
+    NumericArrayList(NumericArrayList other) {
+        this.kind = other.kind;
+        this.initialCapacity = other.initialCapacity;
+        this.size = other.size;
+        this.ints = other.ints == null ? null : Arrays.copyOf(other.ints, other.size);
+        this.longs = other.longs == null ? null : Arrays.copyOf(other.longs, other.size);
+        this.doubles = other.doubles == null ? null : Arrays.copyOf(other.doubles, other.size);
+        this.list = other.list == null ? null : new ArrayList<Object>(other.list);
+    }
+
+    @Override
+    public int size() {
+        return this.kind == GENERIC ? this.list.size() : this.size;
+    }
+
+    @Override
+    public Object get(int index) {
+        switch (this.kind) {
+        case GENERIC:
+            return this.list.get(index);
+        case INT:
+            this.check(index);
+            return Integer.valueOf(this.ints[index]);
+        case LONG:
+            this.check(index);
+            long l = this.longs[index];
+            if (l == (int) l) {
+                return Integer.valueOf((int) l);
+            }
+            return Long.valueOf(l);
+        case DOUBLE:
+            this.check(index);
+            return Double.valueOf(this.doubles[index]);
+        default:
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+        }
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        Object previous = this.get(index);
+        if (this.fits(element)) {
+            this.store(index, element);
+        } else {
+            this.inflate().set(index, element);
+        }
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        if (index == this.size() && this.kind != GENERIC) {
+            if (this.kind == EMPTY) {
+                this.start(element);
+            }
+            if (this.kind == INT && element instanceof Long && !fitsInt((Long) element)) {
+                this.widen();
+            }
+            if (this.fits(element)) {
+                this.grow(this.size + 1);
+                this.store(this.size++, element);
+                this.modCount++;
+                return;
+            }
+        }
+        this.inflate().add(index, element);
+        this.modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        if (this.kind == GENERIC) {
+            this.modCount++;
+            return this.list.remove(index);
+        }
+        Object previous = this.get(index);
+        int moved = this.size - index - 1;
+        if (this.kind == INT) {
+            System.arraycopy(this.ints, index + 1, this.ints, index, moved);
+        } else if (this.kind == LONG) {
+            System.arraycopy(this.longs, index + 1, this.longs, index, moved);
+        } else {
+            System.arraycopy(this.doubles, index + 1, this.doubles, index, moved);
+        }
+        this.size--;
+        this.modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        this.kind = EMPTY;
+        this.size = 0;
+        this.ints = null;
+        this.longs = null;
+        this.doubles = null;
+        this.list = null;
+        this.modCount++;
+    }
+
+    /**
+     * @return the values as ints, or null if they are not kept in an int[].
+     */
+    int[] intValues() {
+        return this.kind == INT ? Arrays.copyOf(this.ints, this.size) : null;
+    }
+
+    /**
+     * @return the values as longs, or null if they are not kept in an int[] or a long[].
+     */
+    long[] longValues() {
+        if (this.kind == LONG) {
+            return Arrays.copyOf(this.longs, this.size);
+        }
+        if (this.kind == INT) {
+            long[] values = new long[this.size];
+            for (int i = 0; i < this.size; i++) {
+                values[i] = this.ints[i];
+            }
+            return values;
+        }
+        return null;
+    }
+
+    /**
+     * @return the values as doubles, or null if the list is empty or generic.
+     */
+    double[] doubleValues() {
+        switch (this.kind) {
+        case DOUBLE:
+            return Arrays.copyOf(this.doubles, this.size);
+        case INT:
+        case LONG:
+            double[] values = new double[this.size];
+            for (int i = 0; i < this.size; i++) {
+                values[i] = this.kind == INT ? this.ints[i] : this.longs[i];
+            }
+            return values;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Choose the kind of an empty list from its first element.
+     */
+    private void start(Object element) {
+        if (element instanceof Integer) {
+            this.kind = INT;
+            this.ints = new int[this.initialCapacity];
+        } else if (element instanceof Long && !fitsInt((Long) element)) {
+            this.kind = LONG;
+            this.longs = new long[this.initialCapacity];
+        } else if (element instanceof Double) {
+            this.kind = DOUBLE;
+            this.doubles = new double[this.initialCapacity];
+        } else {
+            this.kind = GENERIC;
+            this.list = new ArrayList<Object>(this.initialCapacity);
+        }
+    }
+
+    /**
+     * @return true if the element can be kept in the array of the current kind.
+     */
+    private boolean fits(Object element) {
+        switch (this.kind) {
+        case INT:
+            return element instanceof Integer;
+        case LONG:
+            return element instanceof Integer
+                    || (element instanceof Long && !fitsInt((Long) element));
+        case DOUBLE:
+            return element instanceof Double;
+        default:
+            return false;
+        }
+    }
+
+    private void store(int index, Object element) {
+        switch (this.kind) {
+        case INT:
+            this.ints[index] = ((Integer) element).intValue();
+            break;
+        case LONG:
+            this.longs[index] = ((Number) element).longValue();
+            break;
+        default:
+            this.doubles[index] = ((Number) element).doubleValue();
+            break;
+        }
+    }
+
+    private void grow(int capacity) {
+        int length = this.kind == INT ? this.ints.length
+                : this.kind == LONG ? this.longs.length : this.doubles.length;
+        if (capacity <= length) {
+            return;
+        }
+        int newLength = Math.max(capacity, length + (length >> 1));
+        if (this.kind == INT) {
+            this.ints = Arrays.copyOf(this.ints, newLength);
+        } else if (this.kind == LONG) {
+            this.longs = Arrays.copyOf(this.longs, newLength);
+        } else {
+            this.doubles = Arrays.copyOf(this.doubles, newLength);
+        }
+    }
+
+    /**
+     * Move an int[] into a long[].
+     */
+    private void widen() {
+        long[] values = new long[Math.max(10, this.ints.length)];
+        for (int i = 0; i < this.size; i++) {
+            values[i] = this.ints[i];
+        }
+        this.longs = values;
+        this.ints = null;
+        this.kind = LONG;
+    }
+
+    /**
+     * Move the elements into an ArrayList for good.
+     */
+    private ArrayList<Object> inflate() {
+        if (this.kind != GENERIC) {
+            ArrayList<Object> values = new ArrayList<Object>(Math.max(10, this.size + 1));
+            for (int i = 0; i < this.size; i++) {
+                values.add(this.get(i));
+            }
+            this.list = values;
+            this.ints = null;
+            this.longs = null;
+            this.doubles = null;
+            this.size = 0;
+            this.kind = GENERIC;
+        }
+        return this.list;
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+    }
+
+    private static boolean fitsInt(Long value) {
+        long l = value.longValue();
+        return l == (int) l;
+    }
+}
@@ -0,0 +1,223 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses the elements of a top level JSON array on a ForkJoinPool. A single
+ * pass over the characters finds the commas that separate the top level
+ * elements, skipping strings and nested containers; the elements are then
+ * parsed by tasks, each with its own JSONTokener over its range of the
+ * characters, and stored in order.
+ * <p>
+ * The scan accepts only the plain layout of an array: a <code>[</code>, then
+ * elements separated by single commas, then a <code>]</code>. Anything else,
+ * such as an empty element, a missing bracket or a syntax error in one of the
+ * elements, makes {@link #parse()} parse the whole text again on the calling
+ * thread with {@link JSONArray#JSONArray(JSONTokener, JSONParserConfiguration)},
+ * so the result and the error messages are exactly those of the sequential
+ * parser.
+ */
+final class ParallelArrayParser {
+
+    private final char[] source;
+    private final int offset;
+    private final int length;
+    private final JSONParserConfiguration config;
+    private final ForkJoinPool pool;
+
+    /** The start of each element. */
+    private int[] starts = new int[64];
+
+    /** The end of each element, exclusive: its comma or the closing bracket. */
+    private int[] ends = new int[64];
+
+    /** The number of elements. */
+    private int count;
+
+    ParallelArrayParser(char[] source, int offset, int length, JSONParserConfiguration config,
+            ForkJoinPool pool) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.config = config;
+        this.pool = pool;
+    }
+
+    JSONArray parse() throws JSONException {
+        if (this.scan()) {
+            final Object[] values = new Object[this.count];
+            int grain = Math.max(1, this.count / (this.pool.getParallelism() * 8));
+            try {
+                this.pool.invoke(new Chunk(values, 0, this.count, grain));
+                return new JSONArray(this.config, this.count).putAll(Arrays.asList(values));
+            } catch (JSONException e) {
+                // reported below, with the position in the whole text
+            }
+        }
+        return new JSONArray(new JSONTokener(this.source, this.offset, this.length, this.config),
+                this.config);
+    }
+
+    /**
+     * Find the top level elements.
+     *
+     * @return false if the text does not have the plain layout of an array.
+     */
+    private boolean scan() {
+        char[] s = this.source;
+        int end = this.offset + this.length;
+        int i = this.skipWhiteSpace(this.offset, end);
+        if (i == end || s[i] != '[') {
+            return false;
+        }
+        i = this.skipWhiteSpace(i + 1, end);
+        if (i < end && s[i] == ']') {
+            return this.atEnd(i + 1, end);
+        }
+        int depth = 0;
+        int start = i;
+        // true when the next character may start a token, so a quote opens a string
+        boolean tokenStart = true;
+        for (; i < end; i++) {
+            char c = s[i];
+            if (c <= ' ') {
+                continue;
+            }
+            switch (c) {
+            case '"':
+            case '\'':
+                if (tokenStart) {
+                    i = this.skipString(i, end);
+                    if (i == end) {
+                        return false;
+                    }
+                }
+                tokenStart = false;
+                break;
+            case '{':
+            case '[':
+                depth++;
+                tokenStart = true;
+                break;
+            case '}':
+            case ']':
+                if (depth == 0) {
+                    if (c == '}' || !this.add(start, i)) {
+                        return false;
+                    }
+                    return this.atEnd(i + 1, end);
+                }
+                depth--;
+                tokenStart = false;
+                break;
+            case ',':
+                if (depth == 0) {
+                    if (!this.add(start, i)) {
+                        return false;
+                    }
+                    start = i + 1;
+                }
+                tokenStart = true;
+                break;
+            case ':':
+            case ';':
+                tokenStart = true;
+                break;
+            default:
+                tokenStart = false;
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record an element, unless it is empty.
+     */
+    private boolean add(int start, int end) {
+        if (this.skipWhiteSpace(start, end) == end) {
+            return false;
+        }
+        if (this.count == this.starts.length) {
+            this.starts = Arrays.copyOf(this.starts, this.count * 2);
+            this.ends = Arrays.copyOf(this.ends, this.count * 2);
+        }
+        this.starts[this.count] = start;
+        this.ends[this.count++] = end;
+        return true;
+    }
+
+    /**
+     * Characters after the closing bracket are ignored, except in strict mode.
+     */
+    private boolean atEnd(int i, int end) {
+        return !this.config.isStrictMode() || this.skipWhiteSpace(i, end) == end;
+    }
+
+    /**
+     * @return the index of the closing quote, or end if there is none.
+     */
+    private int skipString(int i, int end) {
+        char[] s = this.source;
+        char quote = s[i];
+        for (i++; i < end; i++) {
+            char c = s[i];
+            if (c == quote) {
+                return i;
+            }
+            if (c == '\\') {
+                i++;
+            }
+        }
+        return end;
+    }
+
+    private int skipWhiteSpace(int i, int end) {
+        while (i < end && this.source[i] <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /** Parses a range of elements, dividing it while it is larger than the grain. */
+    private final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] values;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Chunk(Object[] values, int from, int to, int grain) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > this.grain) {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(new Chunk(this.values, this.from, mid, this.grain),
+                        new Chunk(this.values, mid, this.to, this.grain));
+                return;
+            }
+            for (int i = this.from; i < this.to; i++) {
+                int start = ParallelArrayParser.this.starts[i];
+                JSONTokener x = new JSONTokener(ParallelArrayParser.this.source, start,
+                        ParallelArrayParser.this.ends[i] - start, ParallelArrayParser.this.config);
+                this.values[i] = x.nextValue();
+                if (x.nextClean() != 0) {
+                    throw x.syntaxError("Expected a ',' or ']'");
+                }
+            }
+        }
+    }
+}
@@ -29,6 +29,12 @@ public class ParserConfiguration {
      */
     protected int maxNestingDepth;
 
+    /**
+     * Cache used to share one String instance per distinct key, or null when keys are not cached.
+     * The cache is thread safe, so it is shared by every copy of the configuration.
+     */
+    KeyCache keyCache;
+
     /**
      * Constructs a new ParserConfiguration with default settings.
      */
@@ -58,10 +64,12 @@ public class ParserConfiguration {
         // item, a new map instance should be created and if possible each value in the
         // map should be cloned as well. If the values of the map are known to also
         // be immutable, then a shallow clone of the map is acceptable.
-        return new ParserConfiguration(
+        ParserConfiguration config = new ParserConfiguration(
                 this.keepStrings,
                 this.maxNestingDepth
         );
+        config.keyCache = this.keyCache;
+        return config;
     }
 
     /**
@@ -123,4 +131,32 @@ public class ParserConfiguration {
 
         return newConfig;
     }
+
+    /**
+     * The number of entries of the cache used to canonicalize parsed keys, or 0 when keys are not cached.
+     *
+     * @return the size of the key cache.
+     */
+    public int getKeyCacheSize() {
+        return this.keyCache == null ? 0 : this.keyCache.size();
+    }
+
+    /**
+     * Enables a bounded cache that makes parsed object keys and element names share one String
+     * instance per distinct name. This reduces the heap used by large results with a repeated
+     * schema, such as many records parsed with the same configuration. The cache belongs to the
+     * returned configuration and is shared by every parse that uses it, from any thread.
+     * The size is rounded up to a power of two. Using 0 or a negative value disables the cache,
+     * which is the default.
+     *
+     * @param keyCacheSize the number of entries of the key cache
+     * @param <T>          the type of the configuration object
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends ParserConfiguration> T withKeyCacheSize(final int keyCacheSize) {
+        T newConfig = (T) this.clone();
+        newConfig.keyCache = keyCacheSize > 0 ? new KeyCache(keyCacheSize) : null;
+        return newConfig;
+    }
 }
@@ -0,0 +1,298 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A Reader that decodes UTF-8 bytes from a byte array, a ByteBuffer, an
+ * InputStream or a memory mapped file straight into the caller's char buffer, without a
+ * CharsetDecoder. Runs of ASCII bytes, which include every structural
+ * character of JSON and XML, are copied by a plain loop; only the bytes of
+ * other characters go through the multi-byte decoding. Malformed input is
+ * replaced by U+FFFD, as {@link java.io.InputStreamReader} does.
+ */
+final class Utf8Reader extends Reader {
+
+    private static final char REPLACEMENT = '\ufffd';
+
+    /** The largest part of a file that is mapped at once, by default. */
+    static final long MAP_WINDOW = 1L << 28;
+
+    /** The stream to refill the bytes from, or null. */
+    private final InputStream in;
+
+    /** The direct ByteBuffer to refill the bytes from, or null. */
+    private ByteBuffer source;
+
+    /** The file whose windows are mapped into source, or null. */
+    private final FileChannel channel;
+
+    /** The largest part of the file that is mapped at once. */
+    private long window;
+
+    /** The position in the file just past the mapped window. */
+    private long mapped;
+
+    /** The bytes being decoded. */
+    private byte[] bytes;
+
+    /** The position of the next byte to decode. */
+    private int pos;
+
+    /** The position just past the last valid byte. */
+    private int limit;
+
+    /** The low surrogate of a pair whose high surrogate has been returned, or 0. */
+    private char pendingLowSurrogate;
+
+    /**
+     * Read a range of a byte array in place.
+     */
+    Utf8Reader(byte[] bytes, int offset, int length) {
+        this.in = null;
+        this.channel = null;
+        this.source = null;
+        this.bytes = bytes;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Read the bytes between the position and the limit of a ByteBuffer. The
+     * position of the buffer is not changed.
+     */
+    Utf8Reader(ByteBuffer buffer) {
+        this.in = null;
+        this.channel = null;
+        if (buffer.hasArray()) {
+            this.source = null;
+            this.bytes = buffer.array();
+            this.pos = buffer.arrayOffset() + buffer.position();
+            this.limit = buffer.arrayOffset() + buffer.limit();
+        } else {
+            this.source = buffer.duplicate();
+            this.bytes = new byte[8192];
+        }
+    }
+
+    /**
+     * Read an InputStream, which is closed when the reader is closed.
+     */
+    Utf8Reader(InputStream in) {
+        if (in == null) {
+            throw new NullPointerException("inputStream");
+        }
+        this.in = in;
+        this.source = null;
+        this.channel = null;
+        this.bytes = new byte[8192];
+    }
+
+    /**
+     * Read a file mapped into memory, one window of at most
+     * <code>window</code> bytes at a time, so files larger than 2 GB are read
+     * too. The bytes of a window are decoded through a small heap buffer. The
+     * reader closes the channel when it is closed.
+     */
+    Utf8Reader(FileChannel channel, long window) throws IOException {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window");
+        }
+        this.in = null;
+        this.channel = channel;
+        this.window = window;
+        this.bytes = new byte[8192];
+        this.mapWindow();
+    }
+
+    /**
+     * Open a file for reading through memory mapped windows of
+     * {@link #MAP_WINDOW} bytes.
+     *
+     * @param path the file.
+     * @return the reader, which must be closed to close the file.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    static Utf8Reader map(Path path) throws IOException {
+        return map(path, MAP_WINDOW);
+    }
+
+    /**
+     * Open a file for reading through memory mapped windows.
+     *
+     * @param path the file.
+     * @param window the largest number of bytes mapped at once.
+     * @return the reader, which must be closed to close the file.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    static Utf8Reader map(Path path, long window) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new Utf8Reader(channel, window);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Map the next window of the file.
+     *
+     * @return false at the end of the file.
+     */
+    private boolean mapWindow() throws IOException {
+        long size = this.channel.size();
+        if (this.source != null && this.mapped >= size) {
+            return false;
+        }
+        long length = Math.min(this.window, size - this.mapped);
+        this.source = this.channel.map(FileChannel.MapMode.READ_ONLY, this.mapped, length);
+        this.mapped += length;
+        return length > 0;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        if (this.pendingLowSurrogate != 0) {
+            cbuf[off + n++] = this.pendingLowSurrogate;
+            this.pendingLowSurrogate = 0;
+        }
+        byte[] b = this.bytes;
+        while (n < len) {
+            if (this.pos == this.limit) {
+                if (n > 0 || !this.refill(0)) {
+                    break;
+                }
+                b = this.bytes;
+            }
+            // ASCII run
+            int end = Math.min(this.limit, this.pos + len - n);
+            int p = this.pos;
+            while (p < end && b[p] >= 0) {
+                cbuf[off + n++] = (char) b[p++];
+            }
+            this.pos = p;
+            if (p < end) {
+                n += this.decode(cbuf, off + n, len - n);
+                b = this.bytes;
+            }
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    /**
+     * Decode one multi-byte sequence starting at pos.
+     *
+     * @return the number of chars stored, 1 or 2.
+     */
+    private int decode(char[] cbuf, int off, int room) throws IOException {
+        int lead = this.bytes[this.pos] & 0xff;
+        int length;
+        int min;
+        int codePoint;
+        if (lead >= 0xc2 && lead <= 0xdf) {
+            length = 2;
+            min = 0x80;
+            codePoint = lead & 0x1f;
+        } else if (lead >= 0xe0 && lead <= 0xef) {
+            length = 3;
+            min = 0x800;
+            codePoint = lead & 0x0f;
+        } else if (lead >= 0xf0 && lead <= 0xf4) {
+            length = 4;
+            min = 0x10000;
+            codePoint = lead & 0x07;
+        } else {
+            // a continuation byte, or a lead byte that is never valid
+            this.pos++;
+            cbuf[off] = REPLACEMENT;
+            return 1;
+        }
+        while (this.limit - this.pos < length && this.refill(this.limit - this.pos)) {
+            // the sequence continues in the next bytes of the source
+        }
+        byte[] b = this.bytes;
+        int p = this.pos + 1;
+        for (int i = 1; i < length; i++, p++) {
+            if (p == this.limit || (b[p] & 0xc0) != 0x80) {
+                // a truncated sequence is replaced by one character
+                this.pos = p;
+                cbuf[off] = REPLACEMENT;
+                return 1;
+            }
+            codePoint = (codePoint << 6) | (b[p] & 0x3f);
+        }
+        this.pos = p;
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            cbuf[off] = REPLACEMENT;
+            return 1;
+        }
+        if (length < 4) {
+            cbuf[off] = (char) codePoint;
+            return 1;
+        }
+        cbuf[off] = Character.highSurrogate(codePoint);
+        if (room > 1) {
+            cbuf[off + 1] = Character.lowSurrogate(codePoint);
+            return 2;
+        }
+        this.pendingLowSurrogate = Character.lowSurrogate(codePoint);
+        return 1;
+    }
+
+    /**
+     * Read more bytes, keeping the last <code>keep</code> bytes that have not
+     * been decoded yet.
+     *
+     * @return false if no more bytes could be read.
+     */
+    private boolean refill(int keep) throws IOException {
+        if (this.in == null && this.source == null) {
+            return false;
+        }
+        System.arraycopy(this.bytes, this.pos, this.bytes, 0, keep);
+        this.pos = 0;
+        this.limit = keep;
+        int read;
+        if (this.in != null) {
+            do {
+                read = this.in.read(this.bytes, this.limit, this.bytes.length - this.limit);
+            } while (read == 0);
+        } else {
+            if (!this.source.hasRemaining() && (this.channel == null || !this.mapWindow())) {
+                return false;
+            }
+            read = Math.min(this.source.remaining(), this.bytes.length - this.limit);
+            this.source.get(this.bytes, this.limit, read);
+        }
+        if (read < 0) {
+            return false;
+        }
+        this.limit += read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.in != null) {
+            this.in.close();
+        }
+        if (this.channel != null) {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A Writer that encodes characters to UTF-8 into its own byte buffer and
+ * hands the full buffer to an OutputStream or a ByteBuffer, without a
+ * CharsetEncoder or intermediate Strings. It backs the <code>writeTo</code>
+ * methods of JSONObject and JSONArray. Unpaired surrogates are written as
+ * <code>?</code>, as {@link String#getBytes(java.nio.charset.Charset)} does.
+ */
+final class Utf8Writer extends Writer {
+
+    private final OutputStream out;
+    private final ByteBuffer target;
+
+    /** The encoded bytes not yet handed to the target. */
+    private final byte[] bytes = new byte[8192];
+
+    /** The number of bytes in the buffer. */
+    private int count;
+
+    /** A high surrogate waiting for the low surrogate of its pair, or 0. */
+    private char highSurrogate;
+
+    /**
+     * @param out the stream that receives the bytes.
+     */
+    Utf8Writer(OutputStream out) {
+        this.out = out;
+        this.target = null;
+    }
+
+    /**
+     * @param target the buffer that receives the bytes, from its position.
+     */
+    Utf8Writer(ByteBuffer target) {
+        this.out = null;
+        this.target = target;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (this.count > this.bytes.length - 4) {
+            this.drain();
+        }
+        this.encode((char) c);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int end = off + len;
+        byte[] b = this.bytes;
+        int limit = b.length - 4;
+        for (int i = off; i < end; i++) {
+            if (this.count > limit) {
+                this.drain();
+            }
+            char c = str.charAt(i);
+            if (c < 0x80 && this.highSurrogate == 0) {
+                b[this.count++] = (byte) c;
+            } else {
+                this.encode(c);
+            }
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        byte[] b = this.bytes;
+        int limit = b.length - 4;
+        for (int i = off; i < end; i++) {
+            if (this.count > limit) {
+                this.drain();
+            }
+            char c = cbuf[i];
+            if (c < 0x80 && this.highSurrogate == 0) {
+                b[this.count++] = (byte) c;
+            } else {
+                this.encode(c);
+            }
+        }
+    }
+
+    /**
+     * Hand the buffered bytes to the target. A pending high surrogate stays
+     * pending, as its pair may follow.
+     *
+     * @throws IOException if the stream fails.
+     * @throws BufferOverflowException if the ByteBuffer is full.
+     */
+    void drain() throws IOException {
+        if (this.count > 0) {
+            if (this.out != null) {
+                this.out.write(this.bytes, 0, this.count);
+            } else {
+                this.target.put(this.bytes, 0, this.count);
+            }
+            this.count = 0;
+        }
+    }
+
+    /**
+     * Write a pending unpaired surrogate, then hand the buffered bytes to the
+     * target. The stream itself is not flushed.
+     *
+     * @throws IOException if the stream fails.
+     */
+    void finish() throws IOException {
+        if (this.highSurrogate != 0) {
+            this.highSurrogate = 0;
+            this.bytes[this.count++] = '?';
+        }
+        this.drain();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.drain();
+        if (this.out != null) {
+            this.out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.finish();
+        if (this.out != null) {
+            this.out.close();
+        }
+    }
+
+    /**
+     * The writers of JSONObject and JSONArray wrap the failures of nested
+     * values; a full ByteBuffer is reported as such instead.
+     *
+     * @param e the exception thrown while writing.
+     * @return the exception to throw, e itself if it is not caused by a full buffer.
+     */
+    static RuntimeException unwrapOverflow(JSONException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof BufferOverflowException) {
+                return (BufferOverflowException) cause;
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Encode one character; the buffer has room for 4 bytes.
+     */
+    private void encode(char c) {
+        byte[] b = this.bytes;
+        if (this.highSurrogate != 0) {
+            char high = this.highSurrogate;
+            this.highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                b[this.count++] = (byte) (0xf0 | (codePoint >> 18));
+                b[this.count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                b[this.count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                b[this.count++] = (byte) (0x80 | (codePoint & 0x3f));
+                return;
+            }
+            // an unpaired high surrogate and this character fit in the 4 bytes
+            b[this.count++] = '?';
+        }
+        if (c < 0x80) {
+            b[this.count++] = (byte) c;
+        } else if (c < 0x800) {
+            b[this.count++] = (byte) (0xc0 | (c >> 6));
+            b[this.count++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)) {
+            this.highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            b[this.count++] = '?';
+        } else {
+            b[this.count++] = (byte) (0xe0 | (c >> 12));
+            b[this.count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            b[this.count++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+}
@@ -13,7 +13,8 @@ import java.io.BufferedReader;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This provides static methods to convert an XML text into a JSONObject, and to
@@ -68,9 +69,6 @@ public class XML {
      */
     public static final String TYPE_ATTR = "xsi:type";
 
-    private static boolean replaced = false;
-    private static boolean skipCurrentKey = false;
-
 
     /**
      * Creates an iterator for navigating Code Points in a string instead of
@@ -237,254 +235,6 @@ public class XML {
         }
     }
 
-    /**
-     * Scan the content following the named tag, attaching it to the context.
-     *
-     * @param x
-     *            The XMLTokener containing the source string.
-     * @param context
-     *            The JSONObject that will include the new material.
-     * @param name
-     *            The tag name.
-     * @param config
-     *            The XML parser configuration.
-     * @param currentNestingDepth
-     *            The current nesting depth.
-     * @return true if the close tag is processed.
-     * @throws JSONException Thrown if any parsing error occurs.
-     */
-    private static boolean parse(XMLTokener x, JSONObject context, String name, XMLParserConfiguration config, int currentNestingDepth)
-            throws JSONException {
-        char c;
-        int i;
-        JSONObject jsonObject = null;
-        String string;
-        String tagName;
-        Object token;
-        XMLXsiTypeConverter<?> xmlXsiTypeConverter;
-
-        // Test for and skip past these forms:
-        // <!-- ... -->
-        // <! ... >
-        // <![ ... ]]>
-        // <? ... ?>
-        // Report errors for these forms:
-        // <>
-        // <=
-        // <<
-
-        token = x.nextToken();
-
-        // <!
-
-        if (token == BANG) {
-            c = x.next();
-            if (c == '-') {
-                if (x.next() == '-') {
-                    x.skipPast("-->");
-                    return false;
-                }
-                x.back();
-            } else if (c == '[') {
-                token = x.nextToken();
-                if ("CDATA".equals(token)) {
-                    if (x.next() == '[') {
-                        string = x.nextCDATA();
-                        if (string.length() > 0) {
-                            context.accumulate(config.getcDataTagName(), string);
-                        }
-                        return false;
-                    }
-                }
-                throw x.syntaxError("Expected 'CDATA['");
-            }
-            i = 1;
-            do {
-                token = x.nextMeta();
-                if (token == null) {
-                    throw x.syntaxError("Missing '>' after '<!'.");
-                } else if (token == LT) {
-                    i += 1;
-                } else if (token == GT) {
-                    i -= 1;
-                }
-            } while (i > 0);
-            return false;
-        } else if (token == QUEST) {
-
-            // <?
-            x.skipPast("?>");
-            return false;
-        } else if (token == SLASH) {
-
-            // Close tag </
-
-            token = x.nextToken();
-            if (name == null) {
-                throw x.syntaxError("Mismatched close tag " + token);
-            }
-            if (!token.equals(name)) {
-                throw x.syntaxError("Mismatched " + name + " and " + token);
-            }
-            if (x.nextToken() != GT) {
-                throw x.syntaxError("Misshaped close tag");
-            }
-            return true;
-
-        } else if (token instanceof Character) {
-            throw x.syntaxError("Misshaped tag");
-
-            // Open tag <
-
-        } else {
-            tagName = (String) token;
-            token = null;
-            jsonObject = new JSONObject();
-            boolean nilAttributeFound = false;
-            xmlXsiTypeConverter = null;
-            for (;;) {
-                if (token == null) {
-                    token = x.nextToken();
-                }
-                // attribute = value
-                if (token instanceof String) {
-                    string = (String) token;
-                    token = x.nextToken();
-                    if (token == EQ) {
-                        token = x.nextToken();
-                        if (!(token instanceof String)) {
-                            throw x.syntaxError("Missing value");
-                        }
-
-                        if (config.isConvertNilAttributeToNull()
-                                && NULL_ATTR.equals(string)
-                                && Boolean.parseBoolean((String) token)) {
-                            nilAttributeFound = true;
-                        } else if(config.getXsiTypeMap() != null && !config.getXsiTypeMap().isEmpty()
-                                && TYPE_ATTR.equals(string)) {
-                            xmlXsiTypeConverter = config.getXsiTypeMap().get(token);
-                        } else if (!nilAttributeFound) {
-                            Object obj = stringToValue((String) token);
-                            if (obj instanceof Boolean) {
-                                jsonObject.accumulate(string,
-                                        config.isKeepBooleanAsString()
-                                                ? ((String) token)
-                                                : obj);
-                            } else if (obj instanceof Number) {
-                                jsonObject.accumulate(string,
-                                        config.isKeepNumberAsString()
-                                                ? ((String) token)
-                                                : obj);
-                            } else {
-                                jsonObject.accumulate(string, stringToValue((String) token));
-                            }
-                        }
-                        token = null;
-                    } else {
-                        jsonObject.accumulate(string, "");
-                    }
-
-
-                } else if (token == SLASH) {
-                    // Empty tag <.../>
-                    if (x.nextToken() != GT) {
-                        throw x.syntaxError("Misshaped tag");
-                    }
-                    if (config.getForceList().contains(tagName)) {
-                        // Force the value to be an array
-                        if (nilAttributeFound) {
-                            context.append(tagName, JSONObject.NULL);
-                        } else if (jsonObject.length() > 0) {
-                            context.append(tagName, jsonObject);
-                        } else {
-                            context.put(tagName, new JSONArray());
-                        }
-                    } else {
-                        if (nilAttributeFound) {
-                            context.accumulate(tagName, JSONObject.NULL);
-                        } else if (jsonObject.length() > 0) {
-                            context.accumulate(tagName, jsonObject);
-                        } else {
-                            context.accumulate(tagName, "");
-                        }
-                    }
-                    return false;
-
-                } else if (token == GT) {
-                    // Content, between <...> and </...>
-                    for (;;) {
-                        token = x.nextContent();
-                        if (token == null) {
-                            if (tagName != null) {
-                                throw x.syntaxError("Unclosed tag " + tagName);
-                            }
-                            return false;
-                        } else if (token instanceof String) {
-                            string = (String) token;
-                            if (string.length() > 0) {
-                                if(xmlXsiTypeConverter != null) {
-                                    jsonObject.accumulate(config.getcDataTagName(),
-                                            stringToValue(string, xmlXsiTypeConverter));
-                                } else {
-                                    Object obj = stringToValue((String) token);
-                                    if (obj instanceof Boolean) {
-                                        jsonObject.accumulate(config.getcDataTagName(),
-                                                config.isKeepBooleanAsString()
-                                                        ? ((String) token)
-                                                        : obj);
-                                    } else if (obj instanceof Number) {
-                                        jsonObject.accumulate(config.getcDataTagName(),
-                                                config.isKeepNumberAsString()
-                                                        ? ((String) token)
-                                                        : obj);
-                                    } else {
-                                        jsonObject.accumulate(config.getcDataTagName(), stringToValue((String) token));
-                                    }
-                                }
-                            }
-
-                        } else if (token == LT) {
-                            // Nested element
-                            if (currentNestingDepth == config.getMaxNestingDepth()) {
-                                throw x.syntaxError("Maximum nesting depth of " + config.getMaxNestingDepth() + " reached");
-                            }
-
-                            if (parse(x, jsonObject, tagName, config, currentNestingDepth + 1)) {
-                                if (config.getForceList().contains(tagName)) {
-                                    // Force the value to be an array
-                                    if (jsonObject.length() == 0) {
-                                        context.put(tagName, new JSONArray());
-                                    } else if (jsonObject.length() == 1
-                                            && jsonObject.opt(config.getcDataTagName()) != null) {
-                                        context.append(tagName, jsonObject.opt(config.getcDataTagName()));
-                                    } else {
-                                        context.append(tagName, jsonObject);
-                                    }
-                                } else {
-                                    if (jsonObject.length() == 0) {
-                                        context.accumulate(tagName, "");
-                                    } else if (jsonObject.length() == 1
-                                            && jsonObject.opt(config.getcDataTagName()) != null) {
-                                        context.accumulate(tagName, jsonObject.opt(config.getcDataTagName()));
-                                    } else {
-                                        if (!config.shouldTrimWhiteSpace()) {
-                                            removeEmpty(jsonObject, config);
-                                        }
-                                        context.accumulate(tagName, jsonObject);
-                                    }
-                                }
-
-                                return false;
-                            }
-                        }
-                    }
-                } else {
-                    throw x.syntaxError("Misshaped tag");
-                }
-            }
-        }
-    }
-
     /**
      * Compared to the original parse function, this function adds the function (String Convertor) as an input
      * @param x
@@ -728,7 +478,7 @@ public class XML {
      * @param jsonObject JSONObject which may require deletion
      * @param config The XMLParserConfiguration which includes the cDataTagName
      */
-    private static void removeEmpty(final JSONObject jsonObject, final XMLParserConfiguration config) {
+    static void removeEmpty(final JSONObject jsonObject, final XMLParserConfiguration config) {
         if (jsonObject.has(config.getcDataTagName()))  {
             final Object s = jsonObject.get(config.getcDataTagName());
             if (s instanceof String) {
@@ -754,7 +504,7 @@ public class XML {
         }
     }
 
-    private static boolean isStringAllWhiteSpace(final String s) {
+    static boolean isStringAllWhiteSpace(final String s) {
         for (int k = 0; k<s.length(); k++){
             final char eachChar = s.charAt(k);
             if (!Character.isWhitespace(eachChar)) {
@@ -811,6 +561,31 @@ public class XML {
             // This will narrow any values to the smallest reasonable Object representation
             // (Integer, Long, or BigInteger)
 
+            // Integers of up to 18 digits always fit in a long, so they are
+            // converted directly without a BigInteger.
+            int length = val.length();
+            int digitsStart = initial == '-' ? 1 : 0;
+            if (length > digitsStart && length - digitsStart <= 18) {
+                long value = 0;
+                int i = digitsStart;
+                for (; i < length; i++) {
+                    char c = val.charAt(i);
+                    if (c < '0' || c > '9') {
+                        break;
+                    }
+                    value = value * 10 + (c - '0');
+                }
+                if (i == length) {
+                    if (digitsStart == 1) {
+                        value = -value;
+                    }
+                    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                        return Integer.valueOf((int) value);
+                    }
+                    return Long.valueOf(value);
+                }
+            }
+
             // BigInteger down conversion: We use a similar bitLength compare as
             // BigInteger#intValueExact uses. Increases GC, but objects hold
             // only what they need. i.e. Less runtime overhead if the value is
@@ -1016,17 +791,118 @@ public class XML {
      * @throws JSONException Thrown if there is an errors while parsing the string
      */
     public static JSONObject toJSONObject(Reader reader, XMLParserConfiguration config) throws JSONException {
+        return toJSONObject(new XMLTokener(reader, config));
+    }
+
+    /**
+     * Convert the XML text read by an XMLTokener, such as one made by
+     * {@link XMLTokener#fromPath(java.nio.file.Path, XMLParserConfiguration)},
+     * into a JSONObject, using the configuration of the tokener.
+     *
+     * @param x The XMLTokener positioned at the start of the text.
+     * @return A JSONObject containing the structured data from the XML text.
+     * @throws JSONException Thrown if there is an errors while parsing the text
+     * @see #toJSONObject(Reader, XMLParserConfiguration)
+     */
+    public static JSONObject toJSONObject(XMLTokener x) throws JSONException {
+        XMLParserConfiguration config = x.getConfiguration();
         JSONObject jo = new JSONObject();
-        XMLTokener x = new XMLTokener(reader, config);
-        while (x.more()) {
-            x.skipPast("<");
-            if(x.more()) {
-                parse(x, jo, null, config, 0);
-            }
-        }
+        new XMLEventParser(x, new JSONObjectXMLHandler(jo, config), config).parse();
         return jo;
     }
 
+    /**
+     * Read an XML text as a lazy stream of the leaves that
+     * {@link #toJSONObject(Reader)} followed by {@link JSONObject#toStream()}
+     * would produce, using the default configuration.
+     *
+     * @param reader The XML source reader. The caller must close it.
+     * @return the leaves in document order.
+     * @see #toStream(Reader, XMLParserConfiguration)
+     */
+    public static Stream<JSONObject.JSONNode> toStream(Reader reader) {
+        return toStream(reader, XMLParserConfiguration.ORIGINAL);
+    }
+
+    /**
+     * Read an XML text as a lazy stream of the leaves that
+     * {@link #toJSONObject(Reader, XMLParserConfiguration)} followed by
+     * {@link JSONObject#toStream()} would produce. The text is parsed as the
+     * stream is consumed, and no JSONObject is built, so a short-circuiting
+     * operation such as <code>findFirst</code> or <code>limit</code> stops
+     * reading early and a filter over a large text does not hold it in memory.
+     * <p>
+     * Because an element is reported before its following siblings are read,
+     * two paths differ from those of the tree: the first of several sibling
+     * elements with the same name has no index (<code>/a/b</code>,
+     * <code>/a/b[1]</code>, ...) unless its name is in the force list of the
+     * configuration, and several texts within one element are all reported at
+     * the content path without an index. Errors in the text are thrown by the
+     * terminal operation of the stream.
+     *
+     * @param reader The XML source reader. The caller must close it.
+     * @param config Configuration options for the parser.
+     * @return the leaves in document order.
+     */
+    public static Stream<JSONObject.JSONNode> toStream(Reader reader, XMLParserConfiguration config) {
+        return toStream(new XMLTokener(reader, config));
+    }
+
+    /**
+     * Read the XML text of an XMLTokener as a lazy stream of leaves, using
+     * the configuration of the tokener.
+     *
+     * @param x The XMLTokener positioned at the start of the text.
+     * @return the leaves in document order.
+     * @see #toStream(Reader, XMLParserConfiguration)
+     */
+    public static Stream<JSONObject.JSONNode> toStream(XMLTokener x) {
+        return StreamSupport.stream(new XMLNodeSpliterator(x, x.getConfiguration()), false);
+    }
+
+    /**
+     * Parse an XML text and report its content to a handler as a sequence of
+     * events, using the default configuration. No JSONObject is built, so the
+     * memory used depends only on the nesting depth of the text and on what
+     * the handler keeps.
+     *
+     * @param reader The XML source reader.
+     * @param handler The receiver of the events.
+     * @throws JSONException Thrown if the text is not well formed, or by the handler.
+     */
+    public static void parse(Reader reader, XMLHandler handler) throws JSONException {
+        parse(reader, handler, XMLParserConfiguration.ORIGINAL);
+    }
+
+    /**
+     * Parse an XML text and report its content to a handler as a sequence of
+     * events. The configuration controls the trimming of text and the maximum
+     * nesting depth; the conversion options only apply to
+     * {@link #toJSONObject(Reader, XMLParserConfiguration)}.
+     *
+     * @param reader The XML source reader.
+     * @param handler The receiver of the events.
+     * @param config Configuration options for the parser.
+     * @throws JSONException Thrown if the text is not well formed, or by the handler.
+     */
+    public static void parse(Reader reader, XMLHandler handler, XMLParserConfiguration config)
+            throws JSONException {
+        parse(new XMLTokener(reader, config), handler);
+    }
+
+    /**
+     * Parse the XML text of an XMLTokener and report its content to a
+     * handler, using the configuration of the tokener.
+     *
+     * @param x The XMLTokener positioned at the start of the text.
+     * @param handler The receiver of the events.
+     * @throws JSONException Thrown if the text is not well formed, or by the handler.
+     * @see #parse(Reader, XMLHandler, XMLParserConfiguration)
+     */
+    public static void parse(XMLTokener x, XMLHandler handler) throws JSONException {
+        new XMLEventParser(x, handler, x.getConfiguration()).parse();
+    }
+
     /**
      *
      * @param reader, a reader with XML content inside
@@ -1035,166 +911,36 @@ public class XML {
      * @throws JSONException
      */
     public static JSONObject toJSONObject(Reader reader, JSONPointer path) throws JSONException {
-        XMLTokener x = new XMLTokener(reader);
-        // parse the JSONPointer
-        String pointerExpr = path.toString();
-        List<Object> tokens = new ArrayList<>();
-        if (!pointerExpr.isEmpty()) {
-            String[] parts = pointerExpr.split("/", -1);
-            for (int i = (pointerExpr.startsWith("/") ? 1 : 0); i < parts.length; i++) {
-                String part = parts[i].replace("~1", "/").replace("~0", "~");
-                if (part.isEmpty()) {
-                    tokens.add("");
-                } else if (part.matches("-?\\d+") && !(part.startsWith("0") && part.length() > 1)) {
-                    try {
-                        int index = Integer.parseInt(part);
-                        if (index < 0) {
-                            tokens.add(part);
-                        } else {
-                            tokens.add(index);
-                            continue;
-                        }
-                    } catch (NumberFormatException e) {
-                    }
-                }
-                tokens.add(part);
-            }
-        }
         // pointer is empty, then parse the whole document
-        if (tokens.isEmpty()) {
+        if (path.getRefTokens().isEmpty()) {
             return XML.toJSONObject(reader);
         }
-
-        JSONObject result = null;
-        Object firstToken = tokens.get(0);
-        if (!(firstToken instanceof String)) {
-            throw new JSONException("Path not found: " + path);
-        }
-        String targetRoot = (String) firstToken;
-        Integer targetRootIndex = null;
-        int nextTokenIndex = 1;
-        if (nextTokenIndex < tokens.size() && tokens.get(nextTokenIndex) instanceof Integer) {
-            targetRootIndex = (Integer) tokens.get(nextTokenIndex);
-            nextTokenIndex++;
-        }
-        int currentIndexCount = 0;
-
-        while (x.more()) {
-            x.skipPast("<");
-            if (!x.more()) break;
-            char c = x.next();
-            if (c == '?') {
-                // XML announcement
-                x.skipPast("?>");
-                continue;
-            }
-            if (c == '!') {
-                if (x.more()) {
-                    char c2 = x.next();
-                    if (c2 == '-' && x.more() && x.next() == '-') {
-                        x.skipPast("-->");
-                    } else if (c2 == '[') {
-                        x.skipPast("]]>");
-                    } else {
-                        // skip <! announcement (can be comments)
-                        x.skipPast(">");
-                    }
-                }
-                continue;
-            }
-            if (c == '/') {
-                // unexpected closing tag
-                continue;
-            }
-            x.back();
-            Object token = x.nextToken();
-            if (!(token instanceof String)) {
-                throw x.syntaxError("Misshaped element");
-            }
-            String tagName = (String) token;
-            // if the top level matches
-            if (tagName.equals(targetRoot)) {
-                // get the index
-                if (targetRootIndex != null) {
-                    if (currentIndexCount < targetRootIndex) {
-                        // skip the whole tree if not reached yet
-                        skipElement(x, tagName);
-                        currentIndexCount++;
-                        continue;
-                    } else if (currentIndexCount > targetRootIndex) {
-                        break;
-                    }
-                }
-                currentIndexCount++;
-                // path only contains root element itself
-                if (nextTokenIndex >= tokens.size()) {
-                    // parse the whole root element as JSONObject
-                    result = parseElement(x, tagName);
-                    break;
-                }
-                boolean selfClosing = false;
-                JSONObject currentObj = new JSONObject();
-                while (true) {
-                    token = x.nextToken();
-                    if (token == null) {
-                        throw x.syntaxError("Misshaped tag");
-                    }
-                    if (token instanceof Character) {
-                        char ch = (Character) token;
-                        if (ch == '>') {
-                            break;
-                        }
-                        if (ch == '/') {
-                            // end of element
-                            if (x.next() != '>') {
-                                throw x.syntaxError("Misshaped tag");
-                            }
-                            selfClosing = true;
-                            break;
-                        }
-                    } else {
-                        String attrName = (String) token;
-                        Object nextTok = x.nextToken();
-                        if (nextTok == XML.EQ) {
-                            Object attrValueToken = x.nextToken();
-                            if (!(attrValueToken instanceof String)) {
-                                throw x.syntaxError("Missing value for attribute " + attrName);
-                            }
-                            String attrValue = (String) attrValueToken;
-                            currentObj.accumulate(attrName, XML.stringToValue(attrValue));
-                        } else {
-                            currentObj.accumulate(attrName, "");
-                            token = nextTok;
-                            if (token instanceof Character) {
-                                x.back();
-                            }
-                        }
-                    }
-                }
-                if (selfClosing) {
-                    // if tag is empty and path does not end here
-                    result = null;
-                } else {
-                    result = findInElement(x, tagName, nextTokenIndex, tokens);
-                }
-                // if result already found
-                if (result != null) {
-                    break;
-                } else {
-                    // continue searching for the element
-                    continue;
-                }
-            } else {
-                // if the top level does not match
-                skipElement(x, tagName);
-            }
-        }
+        JSONObject result = new XMLPathQuery(path).query(reader).get(path);
         if (result == null) {
             throw new JSONException("Path not found: " + path.toString());
         }
         return result;
     }
 
+    /**
+     * Query several paths of an XML document in a single pass. The paths are
+     * merged into a tree, so that the elements that no path goes through are
+     * skipped without being converted, and the reading stops as soon as every
+     * path has been found. Each result is the one that
+     * {@link #toJSONObject(Reader, JSONPointer)} would return for the path.
+     * To query the same paths in many documents, compile them once into an
+     * {@link XMLPathQuery}.
+     *
+     * @param reader a reader with XML content inside
+     * @param paths the JSONPointer paths to query; they may not be empty
+     * @return the JSONObject found at each path, in the order of the paths;
+     *         the paths that are not found are left out
+     * @throws JSONException if the XML is not well formed, or a path is empty
+     */
+    public static Map<JSONPointer, JSONObject> toJSONObjects(Reader reader, Collection<JSONPointer> paths) throws JSONException {
+        return new XMLPathQuery(paths).query(reader);
+    }
+
     /**
      * Given a customized function, convert the keys in the Json Object
      * @param reader the XML input
@@ -1228,215 +974,6 @@ public class XML {
         return jo;
     }
 */
-    /**
-     * Helper method: skip the current element and its entire subtree without
-     * building any JSON output.
-     *
-     * Preconditions:
-     *   The caller has already read the element name (we are positioned
-     *     right after the `<name` token).
-     *   The tokenizer cursor is at the first token after the element name.
-     */
-    private static void skipElement(XMLTokener x, String tagName) throws JSONException {
-        // Consume attributes until we hit the end of the start‑tag
-        Object token;
-        boolean selfClosing = false;
-        while ((token = x.nextToken()) != null) {
-            if (token instanceof Character) {
-                char ch = (Character) token;
-                if (ch == '>') {           // normal end of start‑tag
-                    break;
-                }
-                if (ch == '/') {           // empty‑element tag `/>`
-                    if (x.next() != '>') {
-                        throw x.syntaxError("Misshaped tag");
-                    }
-                    selfClosing = true;
-                    break;
-                }
-            }
-            // Otherwise ‑– attribute name or value, ignore
-        }
-        if (!selfClosing) {
-            // Skip everything until we see the matching close tag
-            int depth = 0;
-            while (true) {
-                x.skipPast("<");
-                if (!x.more()) {
-                    throw x.syntaxError("Unclosed tag " + tagName);
-                }
-                char c = x.next();
-                if (c == '/') {
-                    // Found a closing tag
-                    Object nameToken = x.nextToken();
-                    if (!(nameToken instanceof String)) {
-                        throw x.syntaxError("Missing close name");
-                    }
-                    String closeName = (String) nameToken;
-                    if (x.next() != '>') {
-                        throw x.syntaxError("Misshaped close tag");
-                    }
-                    if (closeName.equals(tagName)) {
-                        if (depth == 0) {
-                            // Reached the matching close tag – done
-                            break;
-                        } else {
-                            // Closing an inner tag with the same name
-                            depth--;
-                            continue;
-                        }
-                    } else {
-                        // Closing some other tag – ignore
-                        continue;
-                    }
-                } else if (c == '!') {
-                    // Comment / CDATA / DOCTYPE – skip
-                    if (x.more()) {
-                        char c2 = x.next();
-                        if (c2 == '-' && x.more() && x.next() == '-') {
-                            x.skipPast("-->");
-                        } else if (c2 == '[') {
-                            x.skipPast("]]>");
-                        } else {
-                            x.skipPast(">");
-                        }
-                    }
-                    continue;
-                } else if (c == '?') {
-                    // Processing instruction – skip
-                    x.skipPast("?>");
-                    continue;
-                } else {
-                    // New child element – recurse to skip it
-                    x.back();
-                    Object newName = x.nextToken();
-                    if (!(newName instanceof String)) {
-                        throw x.syntaxError("Misshaped tag");
-                    }
-                    skipElement(x, (String) newName);
-                    // If the child has the same tag name, track nesting depth
-                    if (((String) newName).equals(tagName)) {
-                        depth++;
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Search within the current element for the sub‑path specified by `tokens`,
-     * starting at `tokenIndex`.  Stops as soon as the desired node is found.
-     *
-     * @param x          XMLTokener – cursor is right after the parent start‑tag.
-     * @param parentName The name of the element we are currently inside.
-     * @param tokenIndex Index of the current JSONPointer token to match.
-     * @param tokens     Full list of JSONPointer tokens.
-     * @return           The matched JSONObject, or {@code null} if not found here.
-     */
-    private static JSONObject findInElement(XMLTokener x,
-                                            String parentName,
-                                            int tokenIndex,
-                                            List<Object> tokens) throws JSONException {
-        String  targetName  = null;   // child element name to look for
-        Integer targetIndex = null;   // optional array index
-        int     nextIndex   = tokenIndex;
-
-        if (tokenIndex < tokens.size()) {
-            Object tk = tokens.get(tokenIndex);
-            if (tk instanceof String) {
-                targetName = (String) tk;
-                if (tokenIndex + 1 < tokens.size()
-                        && tokens.get(tokenIndex + 1) instanceof Integer) {
-                    targetIndex = (Integer) tokens.get(tokenIndex + 1);
-                    nextIndex   = tokenIndex + 2;
-                } else {
-                    nextIndex   = tokenIndex + 1;
-                }
-            } else { // JSONPointer should not give a number at an object level
-                return null;
-            }
-        }
-
-        int       count  = 0;      // how many <targetName> siblings seen
-        JSONObject result = null;
-
-        while (true) {
-            Object contentToken = x.nextContent();
-            if (contentToken == null) {
-                throw x.syntaxError("Unclosed tag " + parentName);
-            }
-            if (contentToken instanceof String) {
-                // Ignore plain text (unless pointer explicitly targets "content")
-                continue;
-            }
-            if (contentToken instanceof Character && (Character) contentToken == '<') {
-                char c = x.next();
-                if (c == '/') {              // end‑tag for parent
-                    Object closeName = x.nextToken();
-                    if (!(closeName instanceof String) || !closeName.equals(parentName)) {
-                        throw x.syntaxError("Mismatched close tag for " + parentName);
-                    }
-                    if (x.next() != '>') {
-                        throw x.syntaxError("Misshaped close tag");
-                    }
-                    break;                   // search in this parent finished
-                }
-                if (c == '?') { x.skipPast("?>"); continue; }
-                if (c == '!') {
-                    // comment / CDATA – skip
-                    if (x.more()) {
-                        char c2 = x.next();
-                        if (c2 == '-' && x.more() && x.next() == '-') {
-                            x.skipPast("-->");
-                        } else if (c2 == '[') {
-                            x.skipPast("]]>");
-                        } else {
-                            x.skipPast(">");
-                        }
-                    }
-                    continue;
-                }
-                // Child element start
-                x.back();
-                Object childToken = x.nextToken();
-                if (!(childToken instanceof String)) {
-                    throw x.syntaxError("Bad tag syntax");
-                }
-                String childName = (String) childToken;
-
-                if (targetName != null && childName.equals(targetName)) {
-                    // Found desired child name
-                    if (targetIndex != null) {          // need a specific index
-                        if (count < targetIndex) {
-                            skipElement(x, childName);  // not yet reached – skip
-                            count++;
-                            continue;
-                        }
-                        count++;                        // now at the right sibling
-                    } else {                            // first match is enough
-                        count++;
-                        if (count > 1) {                // ambiguous path
-                            skipElement(x, childName);
-                            continue;
-                        }
-                    }
-
-                    // Dive into this child
-                    if (nextIndex >= tokens.size()) {
-                        result = parseElement(x, childName);  // path ends here
-                    } else {
-                        result = findInElement(x, childName, nextIndex, tokens);
-                    }
-                    return result;  // regardless of success, stop searching siblings
-                } else {
-                    // Not the target child – skip whole subtree
-                    skipElement(x, childName);
-                }
-            }
-        }
-        return null;  // target not found in this element
-    }
-
     /**
      * Parse the current element (including its subtree) into a JSONObject.
      *
@@ -1444,7 +981,7 @@ public class XML {
      *   – Caller has already consumed the element name; tokenizer cursor is
      *     positioned immediately after that name token.
      */
-    private static JSONObject parseElement(XMLTokener x, String tagName) throws JSONException {
+    static JSONObject parseElement(XMLTokener x, String tagName) throws JSONException {
         JSONObject jo = new JSONObject();
         Object token;
         boolean selfClosing = false;
@@ -1566,15 +1103,60 @@ public class XML {
         }
     }
 
+    /**
+     * A pointer of {@link #toJSONObject(Reader, Map)} and its replacement. The
+     * pointer is kept as the element names it goes through, each with the
+     * index of the element among its siblings of that name, or -1 for the
+     * first one.
+     */
+    private static final class ReplaceTarget {
+        final JSONPointer pointer;
+        final JSONObject replacement;
+        final String[] names;
+        final int[] indexes;
+        boolean replaced;
+
+        ReplaceTarget(JSONPointer pointer, JSONObject replacement) {
+            this.pointer = pointer;
+            this.replacement = replacement;
+            List<String> names = new ArrayList<String>();
+            List<Integer> indexes = new ArrayList<Integer>();
+            for (String token : pointer.getRefTokens()) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                int index = XMLPathTrie.index(token);
+                if (index >= 0 && !names.isEmpty() && indexes.get(indexes.size() - 1) < 0) {
+                    indexes.set(indexes.size() - 1, index);
+                } else {
+                    names.add(token);
+                    indexes.add(-1);
+                }
+            }
+            this.names = names.toArray(new String[0]);
+            this.indexes = new int[this.names.length];
+            for (int i = 0; i < this.indexes.length; i++) {
+                this.indexes[i] = indexes.get(i);
+            }
+        }
+    }
+
     /** SWE262P MileStone2 project, Task2 by Jiacheng Zhuo **/
 
-    /** Edit the parse method, add functions for the replacement implement **/
-    private static boolean parseMilestone2(XMLTokener x, JSONObject context, String name, XMLParserConfiguration config, int currentNestingDepth, List<String> targetPath,
-                                           int targetPathLength,
-                                           Map<String, Integer> arrayKey,
-                                           boolean isReplace,
-                                           boolean mergeToParent,
-                                           JSONObject replacement)
+    /**
+     * Parse an element like {@link #parse}, replacing the elements that the
+     * targets point to. All the state of a replacement is in the arguments,
+     * so that any number of them can run at the same time.
+     *
+     * @param targets the targets whose names matched the elements enclosing
+     *        this one, at the depth of this element.
+     * @param seen for each target, how many siblings of this element had its
+     *        name at this depth.
+     */
+    private static boolean parseMilestone2(XMLTokener x, JSONObject context, String name, XMLParserConfiguration config,
+                                           int currentNestingDepth,
+                                           List<ReplaceTarget> targets,
+                                           int[] seen)
             throws JSONException {
         char c;
         int i;
@@ -1661,42 +1243,35 @@ public class XML {
         } else {
             //--------add the replacement logic for new parse function by Jiacheng Zhuo----------------//
             String currentTag = token.toString();
-            if (currentNestingDepth < targetPathLength) {
-                boolean isTargetMatch = (currentNestingDepth == targetPathLength - 1) &&
-                        targetPath.get(targetPathLength - 1).equals(currentTag);
-                boolean hasIndex = arrayKey.containsKey(currentTag);//
-                int remainingIndex = hasIndex ? arrayKey.get(currentTag) : 0;//
-                boolean indexMatches = !hasIndex || remainingIndex == 0; //
-
-                if (isReplace && !replaced && isTargetMatch && indexMatches) {
-                    if (isReplace && !replaced && isTargetMatch && indexMatches) {
-                        context.put(currentTag, replacement);
-                        replaced = true;
-                        x.skipPast(currentTag + ">");
-                        return false;
-                    }
-
-                    replaced = true;
-                    x.skipPast(currentTag + ">");
-                    return false;
+            List<ReplaceTarget> childTargets = null;
+            for (int t = 0; t < targets.size(); t++) {
+                ReplaceTarget target = targets.get(t);
+                if (target.replaced || !target.names[currentNestingDepth].equals(currentTag)) {
+                    continue;
                 }
-
-                if (isReplace && hasIndex && !indexMatches) {
-                    arrayKey.put(currentTag, remainingIndex - 1);
+                int index = seen[t]++;
+                if (target.indexes[currentNestingDepth] >= 0
+                        ? target.indexes[currentNestingDepth] != index : index != 0) {
+                    continue;
                 }
-
-                if (!isReplace) {
-                    if (hasIndex) {
-                        skipCurrentKey = (remainingIndex != 0);
-                        arrayKey.put(currentTag, remainingIndex - 1);
-                    }
-
-                    if (!targetPath.get(currentNestingDepth).equals(currentTag)) {
-                        skipCurrentKey = true;
-                    }
-
+                if (currentNestingDepth == target.names.length - 1) {
+                    target.replaced = true;
+                    // accumulate, not put: the replacement takes the place of
+                    // this element among the siblings of the same name
+                    context.accumulate(currentTag, target.replacement);
+                    x.skipElement(currentTag);
+                    return false;
                 }
-            } //--------add replacement logic ends-----------------------------------//
+                if (childTargets == null) {
+                    childTargets = new ArrayList<ReplaceTarget>(targets.size());
+                }
+                childTargets.add(target);
+            }
+            if (childTargets == null) {
+                childTargets = Collections.emptyList();
+            }
+            int[] childSeen = new int[childTargets.size()];
+            //--------add replacement logic ends-----------------------------------//
             tagName = (String) token;
             token = null;
             jsonObject = new JSONObject();
@@ -1806,7 +1381,7 @@ public class XML {
                         } else if (token == LT) {
 
                             if (parseMilestone2(x, jsonObject, tagName, config, currentNestingDepth + 1,
-                                    targetPath, targetPathLength, arrayKey, isReplace, mergeToParent, replacement)) {
+                                    childTargets, childSeen)) {
                                 if (config.getForceList().contains(tagName)) {
                                     if (jsonObject.length() == 0) {
                                         context.put(tagName, new JSONArray());
@@ -1844,7 +1419,8 @@ public class XML {
      *
      * <p>This method is added as part of SWE262P Milestone2 Task2. It performs in-place replacement
      * during parsing, avoiding the need to first build the entire JSON tree before modifying it.
-     * This offers performance benefits by allowing early exit from the parser once the target node is handled.</p>
+     * The element at the path is skipped without being converted. The state of the replacement is
+     * kept per call, so that replacements can run concurrently.</p>
      *
      * @param reader The XML input
      * @param path The JSONPointer path where replacement should occur
@@ -1853,41 +1429,48 @@ public class XML {
      * @throws JSONException if parsing or path manipulation fails
      */
     public static JSONObject toJSONObject(Reader reader, JSONPointer path, JSONObject replacement) throws JSONException {
+        return toJSONObject(reader, Collections.singletonMap(path, replacement));
+    }
+
+    /**
+     * Converts an XML input stream into a JSONObject, replacing the sub-objects at several
+     * JSONPointer paths in a single pass over the input. A path is made of element names, each
+     * optionally followed by the index of the element among its siblings of that name; without
+     * an index, the first one is replaced. The elements that are replaced are skipped without
+     * being converted.
+     *
+     * @param reader The XML input
+     * @param replacements The JSONObject to insert at each JSONPointer path
+     * @return A JSONObject with the sub-objects at the given paths replaced
+     * @throws JSONException if parsing fails, or if one of the paths is not found
+     */
+    public static JSONObject toJSONObject(Reader reader, Map<JSONPointer, JSONObject> replacements) throws JSONException {
         JSONObject jo = new JSONObject();
         XMLTokener x = new XMLTokener(reader);
 
-        // Reset shared state
-        replaced = false;
-        skipCurrentKey = false;
-
-        String[] segments = path.toString().split("/");
-        List<String> targetPath = Arrays.stream(segments)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
-        int targetPathLength = targetPath.size();
-
-        Map<String, Integer> arrayKey = new HashMap<>();
-        for (int i = 0; i < segments.length; i++) {
-            if (segments[i].matches("\\d+") && i > 0) {
-                arrayKey.put(segments[i - 1], Integer.parseInt(segments[i]));
+        List<ReplaceTarget> targets = new ArrayList<ReplaceTarget>(replacements.size());
+        for (Map.Entry<JSONPointer, JSONObject> entry : replacements.entrySet()) {
+            ReplaceTarget target = new ReplaceTarget(entry.getKey(), entry.getValue());
+            if (target.names.length == 0) {
+                throw new JSONException("Replacement failed or path not found: " + entry.getKey());
             }
+            targets.add(target);
         }
-
-        boolean mergeToParent = !path.toString().endsWith("/");
+        int[] seen = new int[targets.size()];
 
         while (x.more()) {
             x.skipPast("<");
             if (x.more()) {
-                parseMilestone2(x, jo, null, XMLParserConfiguration.ORIGINAL, 0,
-                        targetPath, targetPathLength, arrayKey, true, mergeToParent, replacement);
+                parseMilestone2(x, jo, null, XMLParserConfiguration.ORIGINAL, 0, targets, seen);
             }
         }
 
-        if (replaced) {
-            return jo;
-        } else {
-            throw new JSONException("Replacement failed or path not found: " + path);
+        for (ReplaceTarget target : targets) {
+            if (!target.replaced) {
+                throw new JSONException("Replacement failed or path not found: " + target.pointer);
+            }
         }
+        return jo;
     }
 
     /**
@@ -2272,15 +1855,8 @@ public class XML {
 
         @Override
         public JSONObject call() throws Exception {
-            JSONObject jo = new JSONObject();
             try {
-                XMLTokener x = new XMLTokener(reader);
-                while (x.more()) {
-                    x.skipPast("<");
-                    if (x.more()) {
-                        parse(x, jo, null, XMLParserConfiguration.ORIGINAL, 0);
-                    }
-                }
+                JSONObject jo = toJSONObject(reader);
                 after.accept(jo);
                 return jo;
             } catch (Exception e) {
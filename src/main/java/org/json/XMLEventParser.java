@@ -0,0 +1,210 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an XML text from an XMLTokener and reports it to an
+ * {@link XMLHandler}. The parser keeps the names of the open elements on an
+ * explicit stack instead of recursing, so it can be driven one step at a time
+ * with {@link #step()}; {@link #parse()} simply steps to the end of the text.
+ * The syntax accepted, and the errors reported, are the same as for
+ * {@link XML#toJSONObject(java.io.Reader, XMLParserConfiguration)}.
+ */
+final class XMLEventParser {
+
+    private final XMLTokener x;
+    private final XMLHandler handler;
+    private final XMLParserConfiguration config;
+
+    /** The names of the open elements, the innermost last. */
+    private final ArrayList<String> open = new ArrayList<String>();
+
+    /**
+     * @param x the source of the tokens.
+     * @param handler the receiver of the events.
+     * @param config the configuration, used for the maximum nesting depth.
+     */
+    XMLEventParser(XMLTokener x, XMLHandler handler, XMLParserConfiguration config) {
+        this.x = x;
+        this.handler = handler;
+        this.config = config;
+    }
+
+    /**
+     * Parse the whole text.
+     *
+     * @throws JSONException if the text is not well formed or the handler fails.
+     */
+    void parse() throws JSONException {
+        while (this.step()) {
+            // every step reports its own events
+        }
+    }
+
+    /**
+     * @return the number of open elements.
+     */
+    int depth() {
+        return this.open.size();
+    }
+
+    /**
+     * Parse the next piece of the text: one tag, comment, declaration, CDATA
+     * section or run of text. A step reports at most two events, and may
+     * report none, for example for a comment.
+     *
+     * @return false if the end of the text was reached without reading anything.
+     * @throws JSONException if the text is not well formed or the handler fails.
+     */
+    boolean step() throws JSONException {
+        if (this.open.isEmpty()) {
+            // outside of any element everything up to the next tag is ignored
+            if (!this.x.more()) {
+                return false;
+            }
+            this.x.skipPast("<");
+            if (!this.x.more()) {
+                return false;
+            }
+            this.markup();
+            return true;
+        }
+        Object token = this.x.nextContent();
+        if (token == null) {
+            throw this.x.syntaxError("Unclosed tag " + this.open.get(this.open.size() - 1));
+        }
+        if (token instanceof String) {
+            String string = (String) token;
+            if (string.length() > 0) {
+                this.handler.text(string);
+            }
+            return true;
+        }
+        // token is LT: a nested tag of the innermost element
+        if (this.open.size() - 1 == this.config.getMaxNestingDepth()) {
+            throw this.x.syntaxError("Maximum nesting depth of " + this.config.getMaxNestingDepth() + " reached");
+        }
+        this.markup();
+        return true;
+    }
+
+    /**
+     * Parse the markup following a <code>&lt;</code>.
+     */
+    private void markup() throws JSONException {
+        Object token = this.x.nextToken();
+
+        // <!
+
+        if (token == XML.BANG) {
+            char c = this.x.next();
+            if (c == '-') {
+                if (this.x.next() == '-') {
+                    this.x.skipPast("-->");
+                    return;
+                }
+                this.x.back();
+            } else if (c == '[') {
+                token = this.x.nextToken();
+                if ("CDATA".equals(token)) {
+                    if (this.x.next() == '[') {
+                        String string = this.x.nextCDATA();
+                        if (string.length() > 0) {
+                            this.handler.cdata(string);
+                        }
+                        return;
+                    }
+                }
+                throw this.x.syntaxError("Expected 'CDATA['");
+            }
+            int i = 1;
+            do {
+                token = this.x.nextMeta();
+                if (token == null) {
+                    throw this.x.syntaxError("Missing '>' after '<!'.");
+                } else if (token == XML.LT) {
+                    i += 1;
+                } else if (token == XML.GT) {
+                    i -= 1;
+                }
+            } while (i > 0);
+            return;
+        }
+
+        // <?
+
+        if (token == XML.QUEST) {
+            this.x.skipPast("?>");
+            return;
+        }
+
+        // Close tag </
+
+        if (token == XML.SLASH) {
+            token = this.x.nextToken();
+            if (this.open.isEmpty()) {
+                throw this.x.syntaxError("Mismatched close tag " + token);
+            }
+            String name = this.open.get(this.open.size() - 1);
+            if (!token.equals(name)) {
+                throw this.x.syntaxError("Mismatched " + name + " and " + token);
+            }
+            if (this.x.nextToken() != XML.GT) {
+                throw this.x.syntaxError("Misshaped close tag");
+            }
+            this.open.remove(this.open.size() - 1);
+            this.handler.endElement(name);
+            return;
+        }
+
+        if (token instanceof Character) {
+            throw this.x.syntaxError("Misshaped tag");
+        }
+
+        // Open tag <
+
+        String tagName = (String) token;
+        List<Map.Entry<String, String>> attributes = new ArrayList<Map.Entry<String, String>>();
+        token = null;
+        for (;;) {
+            if (token == null) {
+                token = this.x.nextToken();
+            }
+            if (token instanceof String) {
+                // attribute = value
+                String name = (String) token;
+                token = this.x.nextToken();
+                if (token == XML.EQ) {
+                    token = this.x.nextToken();
+                    if (!(token instanceof String)) {
+                        throw this.x.syntaxError("Missing value");
+                    }
+                    attributes.add(new AbstractMap.SimpleImmutableEntry<String, String>(name, (String) token));
+                    token = null;
+                } else {
+                    attributes.add(new AbstractMap.SimpleImmutableEntry<String, String>(name, ""));
+                }
+            } else if (token == XML.SLASH) {
+                // Empty tag <.../>
+                if (this.x.nextToken() != XML.GT) {
+                    throw this.x.syntaxError("Misshaped tag");
+                }
+                this.handler.emptyElement(tagName, attributes);
+                return;
+            } else if (token == XML.GT) {
+                this.open.add(tagName);
+                this.handler.startElement(tagName, attributes);
+                return;
+            } else {
+                throw this.x.syntaxError("Misshaped tag");
+            }
+        }
+    }
+}
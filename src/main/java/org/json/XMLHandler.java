@@ -0,0 +1,80 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives the content of an XML text as a sequence of events, in document
+ * order, from {@link XML#parse(java.io.Reader, XMLHandler, XMLParserConfiguration)}.
+ * Nothing is retained by the parser between events, so a handler that does
+ * not keep the content itself processes a text of any size with bounded memory.
+ * <p>
+ * Every element is reported by a call to {@link #startElement(String, List)},
+ * the events of its content, and a call to {@link #endElement(String)}; an
+ * empty-element tag such as <code>&lt;a/&gt;</code> is reported by a call to
+ * {@link #emptyElement(String, List)}, which by default makes those two calls.
+ * Comments, processing instructions and declarations are not reported, and
+ * neither is text outside of the root element.
+ * {@link XML#toJSONObject(java.io.Reader, XMLParserConfiguration)} is
+ * implemented as one such handler.
+ */
+public interface XMLHandler {
+
+    /**
+     * An element starts.
+     *
+     * @param name the tag name.
+     * @param attributes the name and value of each attribute of the element in
+     *  document order, with entities already replaced. An attribute that is
+     *  repeated is reported each time. An attribute without a value has the
+     *  empty string. The list is only valid during the call.
+     * @throws JSONException to abort the parse.
+     */
+    void startElement(String name, List<Map.Entry<String, String>> attributes) throws JSONException;
+
+    /**
+     * An empty-element tag such as <code>&lt;a/&gt;</code>, which has no
+     * content. The default implementation reports it as
+     * {@link #startElement(String, List)} followed by {@link #endElement(String)}.
+     *
+     * @param name the tag name.
+     * @param attributes the attributes, as for {@link #startElement(String, List)}.
+     * @throws JSONException to abort the parse.
+     */
+    default void emptyElement(String name, List<Map.Entry<String, String>> attributes) throws JSONException {
+        this.startElement(name, attributes);
+        this.endElement(name);
+    }
+
+    /**
+     * Text content of the current element, with entities already replaced. The
+     * text is trimmed and whitespace-only text is not reported unless the
+     * configuration disables white space trimming. The content between two
+     * tags is reported by a single call.
+     *
+     * @param text the text, never empty.
+     * @throws JSONException to abort the parse.
+     */
+    void text(String text) throws JSONException;
+
+    /**
+     * A non-empty CDATA section, in the current element or at the top level
+     * of the text.
+     *
+     * @param text the content of the section.
+     * @throws JSONException to abort the parse.
+     */
+    void cdata(String text) throws JSONException;
+
+    /**
+     * The current element ends.
+     *
+     * @param name the tag name.
+     * @throws JSONException to abort the parse.
+     */
+    void endElement(String name) throws JSONException;
+}
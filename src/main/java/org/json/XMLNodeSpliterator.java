@@ -0,0 +1,189 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import org.json.JSONObject.JSONNode;
+
+/**
+ * The spliterator behind {@link XML#toStream(java.io.Reader, XMLParserConfiguration)}.
+ * It steps an {@link XMLEventParser} only as far as needed to produce the next
+ * leaf and turns the events into the leaves that
+ * {@link XML#toJSONObject(java.io.Reader, XMLParserConfiguration)} followed by
+ * {@link JSONObject#toStream()} would produce. Only the text of the innermost
+ * open elements is held back until it is known where it belongs.
+ */
+final class XMLNodeSpliterator extends Spliterators.AbstractSpliterator<JSONNode> implements XMLHandler {
+
+    /** The state of an element that has started but not ended. */
+    private static final class Element {
+        final String path;
+        boolean object;
+        boolean nil;
+        XMLXsiTypeConverter<?> xsiTypeConverter;
+        String text;
+        Object value;
+        Map<String, Integer> counts;
+
+        Element(String path) {
+            this.path = path;
+        }
+    }
+
+    private final XMLEventParser parser;
+    private final XMLParserConfiguration config;
+
+    /** The open elements, the innermost last, above the root context. */
+    private final ArrayList<Element> stack = new ArrayList<Element>();
+
+    /** The leaves produced by the last step of the parser. */
+    private final ArrayDeque<JSONNode> ready = new ArrayDeque<JSONNode>();
+
+    XMLNodeSpliterator(XMLTokener x, XMLParserConfiguration config) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.parser = new XMLEventParser(x, this, config);
+        this.config = config;
+        Element root = new Element("");
+        root.object = true;
+        this.stack.add(root);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super JSONNode> action) {
+        while (this.ready.isEmpty()) {
+            if (!this.parser.step()) {
+                return false;
+            }
+        }
+        action.accept(this.ready.poll());
+        return true;
+    }
+
+    @Override
+    public void startElement(String name, List<Map.Entry<String, String>> attributes) {
+        Element parent = this.top();
+        this.becomeObject(parent);
+        if (parent.counts == null) {
+            parent.counts = new HashMap<String, Integer>();
+        }
+        Integer count = parent.counts.get(name);
+        int n = count == null ? 0 : count.intValue();
+        parent.counts.put(name, Integer.valueOf(n + 1));
+        String path = parent.path + "/" + name;
+        if (n > 0 || this.config.getForceList().contains(name)) {
+            path += "[" + n + "]";
+        }
+        Element element = new Element(path);
+        Map<String, XMLXsiTypeConverter<?>> xsiTypeMap = this.config.getXsiTypeMap();
+        // a repeated attribute is accumulated into an array by the tree
+        Map<String, int[]> repeated = null;
+        for (int i = 1; i < attributes.size(); i++) {
+            String string = attributes.get(i).getKey();
+            for (int j = 0; j < i; j++) {
+                if (string.equals(attributes.get(j).getKey())) {
+                    if (repeated == null) {
+                        repeated = new HashMap<String, int[]>();
+                    }
+                    repeated.put(string, new int[1]);
+                    break;
+                }
+            }
+        }
+        for (Map.Entry<String, String> attribute : attributes) {
+            String string = attribute.getKey();
+            String value = attribute.getValue();
+            if (this.config.isConvertNilAttributeToNull()
+                    && XML.NULL_ATTR.equals(string)
+                    && Boolean.parseBoolean(value)) {
+                element.nil = true;
+            } else if (xsiTypeMap != null && !xsiTypeMap.isEmpty()
+                    && XML.TYPE_ATTR.equals(string)) {
+                element.xsiTypeConverter = xsiTypeMap.get(value);
+            } else if (!element.nil) {
+                element.object = true;
+                int[] index = repeated == null ? null : repeated.get(string);
+                this.ready.add(new JSONNode(index == null ? path + "/" + string
+                        : path + "/" + string + "[" + index[0]++ + "]",
+                        JSONObjectXMLHandler.convert(value, this.config)));
+            }
+        }
+        this.stack.add(element);
+    }
+
+    @Override
+    public void text(String text) {
+        Element element = this.top();
+        Object value = element.xsiTypeConverter != null
+                ? XML.stringToValue(text, element.xsiTypeConverter)
+                : JSONObjectXMLHandler.convert(text, this.config);
+        this.content(element, text, value);
+    }
+
+    @Override
+    public void cdata(String text) {
+        this.content(this.top(), text, text);
+    }
+
+    @Override
+    public void endElement(String name) {
+        Element element = this.stack.remove(this.stack.size() - 1);
+        if (element.object) {
+            return;
+        }
+        if (element.text != null) {
+            this.ready.add(new JSONNode(element.path, element.value));
+        } else if (element.nil) {
+            this.ready.add(new JSONNode(element.path, JSONObject.NULL));
+        } else if (!this.config.getForceList().contains(name)) {
+            // a forced list of an empty element is an empty array, without leaves
+            this.ready.add(new JSONNode(element.path, ""));
+        }
+    }
+
+    private Element top() {
+        return this.stack.get(this.stack.size() - 1);
+    }
+
+    /**
+     * The first text of an element is held back: it is the value of the
+     * element itself unless more content follows.
+     */
+    private void content(Element element, String text, Object value) {
+        if (!element.object && element.text == null) {
+            element.text = text;
+            element.value = value;
+            return;
+        }
+        this.becomeObject(element);
+        this.addContent(element, text, value);
+    }
+
+    private void becomeObject(Element element) {
+        if (!element.object) {
+            element.object = true;
+            if (element.text != null) {
+                this.addContent(element, element.text, element.value);
+                element.text = null;
+                element.value = null;
+            }
+        }
+    }
+
+    private void addContent(Element element, String text, Object value) {
+        if (!this.config.shouldTrimWhiteSpace() && XML.isStringAllWhiteSpace(text)) {
+            // white space between tags, as removed by toJSONObject
+            return;
+        }
+        this.ready.add(new JSONNode(element.path + "/" + this.config.getcDataTagName(), value));
+    }
+}
@@ -208,6 +208,7 @@ public class XMLParserConfiguration extends ParserConfiguration {
                 this.keepBooleanAsString
         );
         config.shouldTrimWhiteSpace = this.shouldTrimWhiteSpace;
+        config.keyCache = this.keyCache;
         return config;
     }
 
@@ -400,6 +401,18 @@ public class XMLParserConfiguration extends ParserConfiguration {
         return super.withMaxNestingDepth(maxNestingDepth);
     }
 
+    /**
+     * Enables a bounded cache that makes element and attribute names share one String instance
+     * per distinct name. See {@link ParserConfiguration#withKeyCacheSize(int)}.
+     * @param keyCacheSize the number of entries of the key cache, 0 to disable it
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public XMLParserConfiguration withKeyCacheSize(final int keyCacheSize) {
+        return super.withKeyCacheSize(keyCacheSize);
+    }
+
     /**
      * To enable explicit end tag with empty value.
      * @param closeEmptyTag new value for the closeEmptyTag property
@@ -0,0 +1,68 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A set of JSONPointer paths compiled for querying XML documents. The paths
+ * are turned once into a tree of element names and indexes, so that a query
+ * does not parse them again, and each document is read in a single pass that
+ * stops as soon as every path has been found. A query can be used by several
+ * threads at the same time.
+ * <p>
+ * A path is made of element names, each optionally followed by the index of
+ * the element among its siblings of that name; without an index, the first
+ * one is found. For example <code>/catalog/book/1/title</code> is the title of
+ * the second book of the catalog. The result of a path is the element as a
+ * JSONObject, as returned by {@link XML#toJSONObject(Reader, JSONPointer)}.
+ *
+ * <pre>{@code
+ * XMLPathQuery query = new XMLPathQuery(new JSONPointer("/order/id"), new JSONPointer("/order/customer"));
+ * Map<JSONPointer, JSONObject> fields = query.query(reader);
+ * }</pre>
+ */
+public final class XMLPathQuery {
+
+    private final XMLPathTrie trie;
+
+    /**
+     * Compile paths.
+     *
+     * @param paths the JSONPointer paths to query; they may not be empty
+     * @throws JSONException if a path is empty
+     */
+    public XMLPathQuery(JSONPointer... paths) throws JSONException {
+        this(Arrays.asList(paths));
+    }
+
+    /**
+     * Compile paths.
+     *
+     * @param paths the JSONPointer paths to query; they may not be empty
+     * @throws JSONException if a path is empty
+     */
+    public XMLPathQuery(Collection<JSONPointer> paths) throws JSONException {
+        this.trie = new XMLPathTrie();
+        for (JSONPointer path : paths) {
+            this.trie.add(path);
+        }
+    }
+
+    /**
+     * Query an XML document.
+     *
+     * @param reader a reader with XML content inside
+     * @return the JSONObject found at each path, in the order of the paths;
+     *         the paths that are not found are left out
+     * @throws JSONException if the XML is not well formed
+     */
+    public Map<JSONPointer, JSONObject> query(Reader reader) throws JSONException {
+        return this.trie.extract(new XMLTokener(reader));
+    }
+}
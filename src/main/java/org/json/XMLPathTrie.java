@@ -0,0 +1,264 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The JSONPointer paths of an {@link XMLPathQuery} merged into a tree of
+ * element names. Each node is an element: the n-th
+ * child of its parent with a given name, where a path step without an index
+ * is the first one. The document is read once: an element that is a node of
+ * the tree is entered, the others are skipped without being converted, and
+ * an element where a path ends is converted and the paths below it are found
+ * in the result.
+ */
+final class XMLPathTrie {
+
+    /** The paths that end at this element. */
+    private final List<JSONPointer> paths = new ArrayList<JSONPointer>(1);
+
+    /** The nodes of the children, by name and by index among the children of that name. */
+    private final Map<String, Map<Integer, XMLPathTrie>> children = new HashMap<String, Map<Integer, XMLPathTrie>>();
+
+    /** The distinct paths in the order they were added, at the root only. */
+    private Set<JSONPointer> all;
+
+    /**
+     * Add a path to the root of a tree. A path equal to one already added is
+     * ignored.
+     *
+     * @param path a path of element names, each optionally followed by an index.
+     * @throws JSONException if the path is empty.
+     */
+    void add(JSONPointer path) throws JSONException {
+        XMLPathTrie node = this;
+        String name = null;
+        for (String token : path.getRefTokens()) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int index = name == null ? -1 : index(token);
+            if (index >= 0) {
+                node = node.child(name, index);
+                name = null;
+            } else {
+                if (name != null) {
+                    node = node.child(name, 0);
+                }
+                name = token;
+            }
+        }
+        if (name != null) {
+            node = node.child(name, 0);
+        }
+        if (node == this) {
+            throw new JSONException("Path not found: " + path);
+        }
+        if (this.all == null) {
+            this.all = new LinkedHashSet<JSONPointer>();
+        }
+        if (this.all.add(path)) {
+            node.paths.add(path);
+        }
+    }
+
+    /**
+     * @param token a reference token of a path.
+     * @return the index that the token is, or -1 if it is the name of an element.
+     */
+    static int index(String token) {
+        int length = token.length();
+        if (length == 0 || length > 9 || (token.charAt(0) == '0' && length > 1)) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    private XMLPathTrie child(String name, int index) {
+        Map<Integer, XMLPathTrie> byIndex = this.children.get(name);
+        if (byIndex == null) {
+            byIndex = new HashMap<Integer, XMLPathTrie>(2);
+            this.children.put(name, byIndex);
+        }
+        XMLPathTrie child = byIndex.get(index);
+        if (child == null) {
+            child = new XMLPathTrie();
+            byIndex.put(index, child);
+        }
+        return child;
+    }
+
+    /**
+     * Read a document and find the paths of this root. The tree is not
+     * changed, so it can be used by several threads at the same time.
+     *
+     * @param x the tokener at the start of the document.
+     * @return the JSONObject found at each path, in the order the paths were added.
+     * @throws JSONException if the XML is not well formed.
+     */
+    Map<JSONPointer, JSONObject> extract(XMLTokener x) throws JSONException {
+        Map<JSONPointer, JSONObject> found = new HashMap<JSONPointer, JSONObject>();
+        int wanted = this.all == null ? 0 : this.all.size();
+        Map<String, int[]> seen = new HashMap<String, int[]>();
+        while (found.size() < wanted && x.more()) {
+            x.skipPast("<");
+            if (!x.more()) {
+                break;
+            }
+            char c = x.next();
+            if (c == '?') {
+                x.skipPast("?>");
+                continue;
+            }
+            if (c == '!') {
+                skipDeclaration(x);
+                continue;
+            }
+            if (c == '/') {
+                // unexpected closing tag
+                continue;
+            }
+            x.back();
+            this.visitChild(x, seen, found, wanted);
+        }
+        Map<JSONPointer, JSONObject> results = new LinkedHashMap<JSONPointer, JSONObject>();
+        if (this.all != null) {
+            for (JSONPointer path : this.all) {
+                JSONObject result = found.get(path);
+                if (result != null) {
+                    results.put(path, result);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Enter or skip the element whose name is the next token.
+     *
+     * @param seen the number of elements of each name met so far among the siblings.
+     */
+    private void visitChild(XMLTokener x, Map<String, int[]> seen, Map<JSONPointer, JSONObject> found,
+            int wanted) throws JSONException {
+        Object token = x.nextToken();
+        if (!(token instanceof String)) {
+            throw x.syntaxError("Misshaped element");
+        }
+        String name = (String) token;
+        Map<Integer, XMLPathTrie> byIndex = this.children.get(name);
+        XMLPathTrie child = null;
+        if (byIndex != null) {
+            int[] count = seen.get(name);
+            if (count == null) {
+                count = new int[1];
+                seen.put(name, count);
+            }
+            child = byIndex.get(count[0]++);
+        }
+        if (child == null) {
+            x.skipElement(name);
+        } else {
+            child.visit(x, name, found, wanted);
+        }
+    }
+
+    /**
+     * Find the paths of this node in its element.
+     *
+     * @param x the tokener, right after the name of the element.
+     */
+    private void visit(XMLTokener x, String name, Map<JSONPointer, JSONObject> found, int wanted)
+            throws JSONException {
+        if (!this.paths.isEmpty()) {
+            this.resolve(XML.parseElement(x, name), found);
+            return;
+        }
+        if (x.skipStartTag()) {
+            return;
+        }
+        Map<String, int[]> seen = new HashMap<String, int[]>();
+        while (found.size() < wanted) {
+            Object content = x.nextContent();
+            if (content == null) {
+                throw x.syntaxError("Unclosed tag " + name);
+            }
+            if (content instanceof String) {
+                continue;
+            }
+            char c = x.next();
+            if (c == '/') {
+                Object closeName = x.nextToken();
+                if (!name.equals(closeName)) {
+                    throw x.syntaxError("Mismatched close tag for " + name);
+                }
+                if (x.next() != '>') {
+                    throw x.syntaxError("Misshaped close tag");
+                }
+                return;
+            }
+            if (c == '?') {
+                x.skipPast("?>");
+            } else if (c == '!') {
+                skipDeclaration(x);
+            } else {
+                x.back();
+                this.visitChild(x, seen, found, wanted);
+            }
+        }
+    }
+
+    /**
+     * Record the paths of this node and of the nodes below it in a converted element.
+     */
+    private void resolve(JSONObject element, Map<JSONPointer, JSONObject> found) {
+        for (JSONPointer path : this.paths) {
+            found.put(path, element);
+        }
+        for (Map.Entry<String, Map<Integer, XMLPathTrie>> entry : this.children.entrySet()) {
+            Object value = element.opt(entry.getKey());
+            for (Map.Entry<Integer, XMLPathTrie> indexed : entry.getValue().entrySet()) {
+                int index = indexed.getKey();
+                Object child = value instanceof JSONArray ? ((JSONArray) value).opt(index)
+                        : index == 0 ? value : null;
+                if (child instanceof JSONObject) {
+                    indexed.getValue().resolve((JSONObject) child, found);
+                } else if ("".equals(child)) {
+                    indexed.getValue().resolve(new JSONObject(), found);
+                }
+            }
+        }
+    }
+
+    /**
+     * Skip a comment, a CDATA section or a declaration, after its {@code <!}.
+     */
+    private static void skipDeclaration(XMLTokener x) throws JSONException {
+        if (x.more()) {
+            char c = x.next();
+            if (c == '-' && x.more() && x.next() == '-') {
+                x.skipPast("-->");
+            } else if (c == '[') {
+                x.skipPast("]]>");
+            } else {
+                x.skipPast(">");
+            }
+        }
+    }
+}
@@ -4,7 +4,9 @@ package org.json;
 Public Domain.
 */
 
+import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Path;
 
 /**
  * The XMLTokener extends the JSONTokener to provide additional methods
@@ -57,6 +59,41 @@ public class XMLTokener extends JSONTokener {
         this.configuration = configuration;
     }
 
+    /**
+     * Construct an XMLTokener that reads a UTF-8 encoded file mapped into
+     * memory, in windows of up to 256 MB. The caller must close the tokener
+     * to close the file.
+     *
+     * @param path the file.
+     * @param configuration the configuration that can be used to set certain flags
+     * @return the tokener.
+     * @throws IOException if the file cannot be opened or mapped.
+     * @see JSONTokener#fromPath(Path)
+     */
+    public static XMLTokener fromPath(Path path, XMLParserConfiguration configuration) throws IOException {
+        return new XMLTokener(Utf8Reader.map(path), configuration);
+    }
+
+    /**
+     * Construct an XMLTokener that reads a UTF-8 encoded file mapped into
+     * memory, with the default configuration. The caller must close the
+     * tokener to close the file.
+     *
+     * @param path the file.
+     * @return the tokener.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static XMLTokener fromPath(Path path) throws IOException {
+        return fromPath(path, XMLParserConfiguration.ORIGINAL);
+    }
+
+    /**
+     * @return the configuration of this tokener.
+     */
+    XMLParserConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
     /**
      * Get the text in the CDATA block.
      * @return The string up to the <code>]]&gt;</code>.
@@ -311,11 +348,11 @@ public class XMLTokener extends JSONTokener {
                 sb.append(c);
                 c = next();
                 if (Character.isWhitespace(c)) {
-                    return sb.toString();
+                    return name(sb);
                 }
                 switch (c) {
                 case 0:
-                    return sb.toString();
+                    return name(sb);
                 case '>':
                 case '/':
                 case '=':
@@ -324,7 +361,7 @@ public class XMLTokener extends JSONTokener {
                 case '[':
                 case ']':
                     back();
-                    return sb.toString();
+                    return name(sb);
                 case '<':
                 case '"':
                 case '\'':
@@ -336,75 +373,101 @@ public class XMLTokener extends JSONTokener {
 
 
     /**
-     * Skip characters until past the requested string.
-     * If it is not found, we are left at the end of the source with a result of false.
-     * @param to A string to skip past.
+     * Make the String of a name, shared through the key cache of the
+     * configuration when there is one.
      */
-    // The Android implementation of JSONTokener has a public method of public void skipPast(String to)
-    // even though ours does not have that method, to have API compatibility, our method in the subclass
-    // should match.
-    public void skipPast(String to) {
-        boolean b;
-        char c;
-        int i;
-        int j;
-        int offset = 0;
-        int length = to.length();
-        char[] circle = new char[length];
-
-        /*
-         * First fill the circle buffer with as many characters as are in the
-         * to string. If we reach an early end, bail.
-         */
-
-        for (i = 0; i < length; i += 1) {
-            c = next();
-            if (c == 0) {
-                return;
-            }
-            circle[i] = c;
-        }
+    private String name(StringBuilder sb) {
+        KeyCache keyCache = this.configuration.keyCache;
+        return keyCache == null ? sb.toString() : keyCache.get(sb);
+    }
 
-        /* We will loop, possibly for all of the remaining characters. */
 
+    /**
+     * Skip the rest of a start-tag whose name has been read, without making
+     * tokens of its attributes. Quoted attribute values may contain
+     * <code>&gt;</code>.
+     *
+     * @return true if the tag is an empty-element tag <code>/&gt;</code>.
+     * @throws JSONException if the input ends in the tag.
+     */
+    boolean skipStartTag() throws JSONException {
+        char previous = 0;
         for (;;) {
-            j = offset;
-            b = true;
-
-            /* Compare the circle buffer with the to string. */
-
-            for (i = 0; i < length; i += 1) {
-                if (circle[j] != to.charAt(i)) {
-                    b = false;
-                    break;
-                }
-                j += 1;
-                if (j >= length) {
-                    j -= length;
+            char c = next();
+            switch (c) {
+            case 0:
+                throw syntaxError("Misshaped tag");
+            case '"':
+            case '\'':
+                for (char q = next(); q != c; q = next()) {
+                    if (q == 0) {
+                        throw syntaxError("Unterminated string");
+                    }
                 }
+                break;
+            case '>':
+                return previous == '/';
+            default:
+                break;
             }
+            previous = c;
+        }
+    }
 
-            /* If we exit the loop with b intact, then victory is ours. */
-
-            if (b) {
-                return;
-            }
-
-            /* Get the next character. If there isn't one, then defeat is ours. */
-
-            c = next();
-            if (c == 0) {
-                return;
+    /**
+     * Skip the rest of an element whose name has been read, with everything
+     * it contains. Only the nesting of the tags is followed, in the raw
+     * characters: no token is made, and the names of the close tags are not
+     * checked. Comments, CDATA sections, processing instructions and quoted
+     * attribute values are skipped as a whole, so a <code>&lt;</code> or
+     * <code>&gt;</code> in them is not taken for a tag.
+     *
+     * @param tagName the name of the element, for error messages.
+     * @throws JSONException if the input ends before the element is closed.
+     */
+    void skipElement(String tagName) throws JSONException {
+        if (skipStartTag()) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            if (!scanPast("<")) {
+                throw syntaxError("Unclosed tag " + tagName);
             }
-            /*
-             * Shove the character in the circle buffer and advance the
-             * circle offset. The offset is mod n.
-             */
-            circle[offset] = c;
-            offset += 1;
-            if (offset >= length) {
-                offset -= length;
+            char c = next();
+            if (c == '/') {
+                if (skipStartTag()) {
+                    throw syntaxError("Misshaped close tag");
+                }
+                depth--;
+            } else if (c == '?') {
+                skipPast("?>");
+            } else if (c == '!') {
+                c = next();
+                if (c == '-' && next() == '-') {
+                    skipPast("-->");
+                } else if (c == '[') {
+                    skipPast("]]>");
+                } else {
+                    skipStartTag();
+                }
+            } else if (c == 0) {
+                throw syntaxError("Unclosed tag " + tagName);
+            } else if (!skipStartTag()) {
+                depth++;
             }
         }
     }
+
+    /**
+     * Skip characters until past the requested string.
+     * If it is not found, we are left at the end of the source with a result of false.
+     * @param to A string to skip past.
+     */
+    // The Android implementation of JSONTokener has a public method of public void skipPast(String to)
+    // even though ours does not have that method, to have API compatibility, our method in the subclass
+    // should match.
+    public void skipPast(String to) {
+        scanPast(to);
+    }
 }
@@ -0,0 +1,58 @@
+package org.json;
+
+/*
+Public Domain.
+*/
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link Utf8Reader} that need its package-private constructors.
+ */
+public class Utf8ReaderTest {
+
+    @Test
+    public void sequencesSplitAcrossMappedWindows() throws IOException {
+        // 1, 2, 3 and 4 byte sequences, so that every window size splits some
+        String text = "[\"a\u00e9\u20ac\ud83d\ude00b\u00e9\u20ac\ud83d\ude00\",\"caf\u00e9\"]";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Path file = Files.createTempFile("utf8", ".json");
+        try {
+            Files.write(file, bytes);
+            for (int window = 1; window <= 5; window++) {
+                assertEquals("window " + window, text, readAll(Utf8Reader.map(file, window)));
+                JSONTokener x = new JSONTokener(Utf8Reader.map(file, window));
+                try {
+                    assertEquals("window " + window, new JSONArray(text).toString(),
+                            new JSONArray(x).toString());
+                } finally {
+                    x.close();
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] cbuf = new char[3];
+            int n;
+            while ((n = reader.read(cbuf, 0, cbuf.length)) >= 0) {
+                sb.append(cbuf, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+}
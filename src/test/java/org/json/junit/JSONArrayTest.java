@@ -9,14 +9,17 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -25,6 +28,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -1544,4 +1548,161 @@ public class JSONArrayTest {
         nestedArray.add(buildNestedArray(maxDepth - 1));
         return nestedArray;
     }
+
+    @Test
+    public void parseParallelMatchesSequentialParse() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 3000; i++) {
+            if (i > 0) {
+                sb.append(",\n");
+            }
+            sb.append("{\"id\":").append(i)
+                    .append(",\"name\":\"a, \\\"b\\\" ]}\",'c':['x,y',{\"d\":null}],e:f g}");
+        }
+        sb.append("]");
+        String json = sb.toString();
+        JSONArray expected = new JSONArray(json);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            char[] chars = json.toCharArray();
+            JSONArray actual = JSONArray.parseParallel(chars, 0, chars.length,
+                    new JSONParserConfiguration(), pool);
+            assertTrue(expected.similar(actual));
+            assertEquals(3000, actual.length());
+            assertEquals("f g", actual.getJSONObject(2999).get("e"));
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(expected.similar(JSONArray.parseParallel(json)));
+    }
+
+    @Test
+    public void parseParallelIrregularArrays() {
+        String[] texts = {"[]", " [ 1 ] ", "[1,,2]", "[,1]", "[1,2,]", "[[1],[2,[3]]]x", "['a\\'b', \"]\"]"};
+        for (String json : texts) {
+            assertTrue(json, new JSONArray(json).similar(JSONArray.parseParallel(json)));
+        }
+    }
+
+    @Test
+    public void parseParallelReportsErrorsLikeSequentialParse() {
+        String[] texts = {"[1, {\"a\" 1}, 3]", "[1, 2", "{\"a\":1}", "[\"a\" \"b\"]"};
+        for (String json : texts) {
+            String expected = null;
+            try {
+                new JSONArray(json);
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            try {
+                JSONArray.parseParallel(json);
+                fail("Expected an exception for " + json);
+            } catch (JSONException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+        JSONParserConfiguration strict = new JSONParserConfiguration().withStrictMode(true);
+        char[] chars = "[1,2] x".toCharArray();
+        try {
+            JSONArray.parseParallel(chars, 0, chars.length, strict, ForkJoinPool.commonPool());
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Strict mode error: Unparsed characters found at end of input text"));
+        }
+    }
+
+    @Test
+    public void compactNumericArraysBehaveLikeBoxedArrays() {
+        JSONParserConfiguration compact = new JSONParserConfiguration().withCompactNumericArrays(true);
+        String[] texts = {"[1, 2, -3]", "[1, 10000000000, 3, -2147483649]", "[1.5, 12.50, 0.1]",
+                "[1.5, 2.25, 1e400]", "[[1, 2], [3.5], [], [1, \"a\", null]]", "[1, 2.5, true]"};
+        for (String json : texts) {
+            JSONArray expected = new JSONArray(json);
+            JSONArray actual = new JSONArray(new JSONTokener(json, compact));
+            assertEquals(expected.toString(), actual.toString());
+            assertTrue(json, expected.similar(actual));
+            for (int i = 0; i < expected.length(); i++) {
+                assertEquals(json, expected.get(i).getClass(), actual.get(i).getClass());
+            }
+        }
+        JSONArray longs = new JSONArray(new JSONTokener("[1, 10000000000]", compact));
+        assertEquals(Integer.valueOf(1), longs.get(0));
+        assertEquals(Long.valueOf(10000000000L), longs.get(1));
+        JSONArray doubles = new JSONArray(new JSONTokener("[1.5, 2]",
+                compact.withUseDoubleForDecimals(true)));
+        assertEquals(Double.valueOf(1.5), doubles.get(0));
+        assertEquals(Integer.valueOf(2), doubles.get(1));
+    }
+
+    @Test
+    public void compactNumericArraysAcceptAnyChange() {
+        JSONParserConfiguration compact = new JSONParserConfiguration().withCompactNumericArrays(true);
+        JSONArray ja = new JSONArray(new JSONTokener("[1, 2, 3, 4]", compact));
+        ja.put(5);
+        ja.put(10000000000L);
+        ja.remove(0);
+        ja.put(0, 7);
+        assertEquals("[7,3,4,5,10000000000]", ja.toString());
+        ja.put(1, "x");
+        ja.put(7, 1.5);
+        assertEquals("[7,\"x\",4,5,10000000000,null,null,1.5]", ja.toString());
+        Iterator<Object> it = ja.iterator();
+        it.next();
+        it.remove();
+        assertEquals("x", ja.get(0));
+        JSONArray copy = new JSONArray(new JSONArray(new JSONTokener("[1, 2]", compact)));
+        copy.put(3);
+        assertEquals("[1,2,3]", copy.toString());
+        ja.clear();
+        assertTrue(ja.isEmpty());
+        ja.put(1);
+        assertEquals("[1]", ja.toString());
+    }
+
+    @Test
+    public void toPrimitiveArrays() {
+        JSONParserConfiguration compact = new JSONParserConfiguration().withCompactNumericArrays(true);
+        String[] texts = {"[1, 2, -3]", "[1, 10000000000]", "[1.5, 2.75]", "[1, \"2\", 3.5]"};
+        for (String json : texts) {
+            JSONArray boxed = new JSONArray(json);
+            JSONArray packed = new JSONArray(new JSONTokener(json, compact));
+            assertTrue(json, Arrays.equals(boxed.toLongArray(), packed.toLongArray()));
+            assertTrue(json, Arrays.equals(boxed.toIntArray(), packed.toIntArray()));
+            assertTrue(json, Arrays.equals(boxed.toDoubleArray(), packed.toDoubleArray()));
+        }
+        assertTrue(Arrays.equals(new int[] {1, 2, -3}, new JSONArray("[1, 2, -3]").toIntArray()));
+        assertTrue(Arrays.equals(new double[] {1.5, 2, 3.5},
+                new JSONArray("[1.5, 2, \"3.5\"]").toDoubleArray()));
+        try {
+            new JSONArray(new JSONTokener("[1, true]", compact)).toIntArray();
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("JSONArray[1] is not a int (class java.lang.Boolean : true).", e.getMessage());
+        }
+    }
+
+    /**
+     * Decimals parsed as BigDecimals are kept as they were parsed, so reading
+     * them twice gives the same objects.
+     */
+    @Test
+    public void compactNumericArraysKeepBigDecimals() {
+        JSONArray packed = new JSONArray(new JSONTokener("[12.5, 12.50, 0.1]",
+                new JSONParserConfiguration().withCompactNumericArrays(true)));
+        for (int i = 0; i < packed.length(); i++) {
+            assertSame(packed.get(i), packed.get(i));
+        }
+        assertEquals(new JSONArray("[12.5, 12.50, 0.1]").toString(), packed.toString());
+    }
+
+    @Test
+    public void writeToUtf8() {
+        JSONArray ja = new JSONArray("[\"\u00fc\", {\"\u20ac\": [null, 1.5]}, \"</x>\"]");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(out == ja.writeTo(out));
+        assertEquals(ja.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+        out.reset();
+        ja.writeTo(out, 4);
+        assertEquals(ja.toString(4), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
 }
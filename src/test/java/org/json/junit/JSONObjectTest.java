@@ -15,6 +15,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -22,6 +23,9 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
@@ -36,6 +40,7 @@ import org.json.JSONString;
 import org.json.JSONTokener;
 import org.json.ParserConfiguration;
 import org.json.XML;
+import org.json.junit.data.BindableBean;
 import org.json.junit.data.BrokenToString;
 import org.json.junit.data.ExceptionalBean;
 import org.json.junit.data.Fraction;
@@ -3021,6 +3026,76 @@ public class JSONObjectTest {
                 "\"\u1234\\u0088\"".equals(quotedStr));
     }
 
+    /**
+     * Exercise JSONObject writeTo(), which encodes to UTF-8 without a String.
+     */
+    @Test
+    public void jsonObjectWriteToUtf8() {
+        JSONObject jo = new JSONObject();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append("a\u00e9\u20ac\ud83d\ude00");
+        }
+        jo.put("text", sb.toString());
+        jo.put("lone", "x\ud83dy\ude00z\ud83d");
+        jo.put("list", new JSONArray().put(1).put("\u4e2d").put(new JSONObject().put("k", true)));
+        for (int indent : new int[] {0, 2}) {
+            byte[] expected = jo.toString(indent).getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            jo.writeTo(out, indent);
+            assertTrue(Arrays.equals(expected, out.toByteArray()));
+            ByteBuffer buffer = ByteBuffer.allocate(expected.length + 10);
+            buffer.position(3);
+            jo.writeTo(buffer, indent);
+            assertEquals(expected.length + 3, buffer.position());
+            byte[] written = new byte[expected.length];
+            buffer.position(3);
+            buffer.get(written);
+            assertTrue(Arrays.equals(expected, written));
+        }
+        try {
+            jo.writeTo(ByteBuffer.allocate(100));
+            fail("Expected an exception");
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Exercise JSONObject quote() for every character that may need an
+     * escape, alone and between runs of plain characters.
+     */
+    @Test
+    public void jsonObjectQuoteEscapeTable() throws IOException {
+        for (char c = 0; c < '\u2200'; c++) {
+            String expected;
+            switch (c) {
+            case '"': expected = "\\\""; break;
+            case '\\': expected = "\\\\"; break;
+            case '\b': expected = "\\b"; break;
+            case '\t': expected = "\\t"; break;
+            case '\n': expected = "\\n"; break;
+            case '\f': expected = "\\f"; break;
+            case '\r': expected = "\\r"; break;
+            default:
+                if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
+                    expected = String.format("\\u%04x", (int) c);
+                } else {
+                    expected = String.valueOf(c);
+                }
+            }
+            assertEquals("\"" + expected + "\"", JSONObject.quote(String.valueOf(c)));
+            String run = "ab" + c + "cd" + c;
+            StringWriter writer = new StringWriter();
+            JSONObject.quote(run, writer);
+            assertEquals("\"ab" + expected + "cd" + expected + "\"", writer.toString());
+            assertEquals(writer.toString(), JSONObject.quote(run));
+        }
+        assertEquals("\"a<\\/b/<\\/\"", JSONObject.quote("a</b/</"));
+        String plain = "no escapes at all";
+        assertEquals("\"" + plain + "\"", JSONObject.quote(plain));
+    }
+
     /**
      * Confirm behavior when JSONObject stringToValue() is called for an
      * empty string
@@ -3582,6 +3657,201 @@ public class JSONObjectTest {
         Util.checkJSONObjectMaps(jo);
     }
     
+    /**
+     * Beans of the same class are read through the cached getters; each bean
+     * still gets its own values.
+     */
+    @Test
+    public void beanGettersAreReusedAcrossInstances() {
+        final JSONObject first = new JSONObject(new MyBeanCustomNameSubClass());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(first.similar(new JSONObject(new MyBeanCustomNameSubClass())));
+        }
+        assertEquals(42 * 42, first.getInt("forcedInt"));
+        assertFalse(first.has("ShouldBeIgnored"));
+        assertEquals(Integer.valueOf(1), new JSONObject(new GenericBean<>(1)).get("genericValue"));
+        assertEquals(Double.valueOf(2.5), new JSONObject(new GenericBean<>(2.5)).get("genericValue"));
+        Util.checkJSONObjectMaps(first);
+    }
+
+    private static final String BINDABLE_JSON = "{\"name\":\"Ann\",\"age\":\"42\",\"active\":true,"
+            + "\"balance\":12.50,\"kind\":\"VAL2\",\"tags\":[\"a\",\"b\"],\"codes\":[3,1,3],"
+            + "\"addresses\":{\"work\":{\"city\":\"Oslo\",\"zip\":150}},\"ids\":[1,2,9007199254740993],"
+            + "\"home\":{\"city\":\"Bergen\",\"zip\":5003,\"unknown\":[{\"x\":[]}]},"
+            + "\"secret\":\"s\",\"nickname\":\"annie\",\"nick\":\"ignored\",\"extra\":{\"a\":[1,2]}}";
+
+    private static void checkBindableBean(BindableBean bean) {
+        assertEquals("Ann", bean.getName());
+        assertEquals(42, bean.getAge());
+        assertTrue(bean.isActive());
+        assertEquals(new BigDecimal("12.50"), bean.getBalance());
+        assertEquals(MyEnum.VAL2, bean.getKind());
+        assertEquals(Arrays.asList("a", "b"), bean.getTags());
+        assertEquals(new LinkedHashSet<Integer>(Arrays.asList(3, 1)), bean.getCodes());
+        assertEquals("Oslo", bean.getAddresses().get("work").getCity());
+        assertEquals(150, bean.getAddresses().get("work").getZip());
+        assertTrue(Arrays.equals(new long[] {1, 2, 9007199254740993L}, bean.getIds()));
+        assertEquals("Bergen", bean.getHome().getCity());
+        assertEquals(5003, bean.getHome().getZip());
+        assertNull(bean.getSecret());
+        assertEquals("annie", bean.getNick());
+    }
+
+    /**
+     * toBean converts the members to the types of the setters.
+     */
+    @Test
+    public void toBean() {
+        JSONObject jo = new JSONObject(BINDABLE_JSON);
+        BindableBean bean = jo.toBean(BindableBean.class);
+        checkBindableBean(bean);
+        // a bean bound from the JSON it was written to is the same bean
+        JSONObject written = new JSONObject(bean);
+        BindableBean copy = new JSONObject(written.toString()).toBean(BindableBean.class);
+        assertTrue(written.similar(new JSONObject(copy)));
+        assertEquals("annie", written.getString("nickname"));
+        Util.checkJSONObjectMaps(jo);
+    }
+
+    /**
+     * bind reads a bean from a tokener without building the JSONObject.
+     */
+    @Test
+    public void bindFromTokener() {
+        JSONTokener x = new JSONTokener(BINDABLE_JSON + " [1]");
+        checkBindableBean(JSONObject.bind(x, BindableBean.class));
+        assertEquals('[', x.nextClean());
+        BindableBean bean = JSONObject.bind(new JSONTokener("{\"age\":null,\"tags\":null}"),
+                BindableBean.class);
+        assertEquals(0, bean.getAge());
+        assertNull(bean.getTags());
+        try {
+            JSONObject.bind(new JSONTokener("[1]"), BindableBean.class);
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("A JSONObject text must begin with '{'"));
+        }
+    }
+
+    /**
+     * Values that cannot be converted to the type of their setter.
+     */
+    @Test
+    public void toBeanConversionErrors() {
+        String[] invalid = {"{\"age\":\"old\"}", "{\"age\":{}}", "{\"kind\":\"VAL9\"}",
+                "{\"active\":1}", "{\"tags\":\"a\"}", "{\"home\":[1]}"};
+        for (String json : invalid) {
+            try {
+                new JSONObject(json).toBean(BindableBean.class);
+                fail("Expected an exception for " + json);
+            } catch (JSONException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("JSONObject["));
+            }
+            try {
+                JSONObject.bind(new JSONTokener(json), BindableBean.class);
+                fail("Expected an exception for " + json);
+            } catch (JSONException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("JSONObject["));
+            }
+        }
+        try {
+            new JSONObject("{}").toBean(MyBean.class);
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("No public no-argument constructor"));
+        }
+    }
+
+    /**
+     * Objects parsed into the compact map behave like those in a HashMap.
+     */
+    @Test
+    public void compactObjects() {
+        JSONParserConfiguration compact = new JSONParserConfiguration().withCompactObjects(true);
+        String json = "{\"a\":1,\"b\":{\"c\":[{\"d\":null}],\"e\":\"f\"},\"g\":true,\"h\":{}}";
+        JSONObject expected = new JSONObject(json);
+        JSONObject actual = new JSONObject(new JSONTokener(json, compact));
+        assertTrue(expected.similar(actual));
+        assertEquals(expected.keySet(), actual.keySet());
+        assertEquals(expected.toMap(), actual.toMap());
+        assertEquals(new JSONObject(actual.toString()).toMap(), expected.toMap());
+        assertNotEquals(expected.getMapType(), actual.getMapType());
+        Util.checkJSONObjectMaps(actual, actual.getMapType());
+        try {
+            new JSONObject(new JSONTokener("{\"a\":1,\"a\":2}", compact));
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Duplicate key \"a\""));
+        }
+    }
+
+    /**
+     * The compact map keeps working through many puts and removes, and
+     * through removes by its iterators.
+     */
+    @Test
+    public void compactObjectsChangeLikeHashMaps() {
+        JSONObject compact = new JSONObject(new JSONTokener("{}",
+                new JSONParserConfiguration().withCompactObjects(true)));
+        Map<String, Object> expected = new HashMap<String, Object>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            String key = "k" + random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), compact.remove(key));
+            } else {
+                compact.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), compact.length());
+        }
+        assertEquals(expected, compact.toMap());
+        Iterator<String> keys = compact.keySet().iterator();
+        while (keys.hasNext()) {
+            if (compact.getInt(keys.next()) % 2 == 0) {
+                keys.remove();
+            }
+        }
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            assertEquals(((Integer) entry.getValue()) % 2 != 0, compact.has(entry.getKey()));
+        }
+        compact.clear();
+        assertTrue(compact.isEmpty());
+        compact.put("x", 1);
+        assertEquals("{\"x\":1}", compact.toString());
+    }
+
+    /**
+     * Documents parsed with container size hints are the same as the ones
+     * parsed without, whether the sizes learned from the previous documents
+     * are right or not.
+     */
+    @Test
+    public void containerSizeHints() {
+        JSONParserConfiguration hinted = new JSONParserConfiguration().withContainerSizeHints(true);
+        assertTrue(hinted.isContainerSizeHints());
+        assertFalse(new JSONParserConfiguration().isContainerSizeHints());
+        assertTrue(hinted.withCompactObjects(true).isContainerSizeHints());
+        String[] documents = {
+            "{\"a\":1,\"b\":{\"c\":[{\"d\":null},{\"d\":2,\"e\":3}],\"f\":\"g\"},\"h\":{}}",
+            "{\"a\":1,\"b\":{\"c\":[{\"d\":1},{}],\"f\":\"g\",\"i\":[1,2,3]},\"h\":{\"j\":[]}}",
+            "{\"a\":1}",
+            "{\"b\":{\"c\":[],\"x\":{\"y\":{\"z\":[[1],[2,3],[]]}}},\"h\":{\"k\":1,\"l\":2,\"m\":3}}",
+            "{\"b\":{\"c\":" + new JSONArray(new int[5000]) + "},\"h\":{}}"
+        };
+        for (int round = 0; round < 2; round++) {
+            for (String json : documents) {
+                JSONObject expected = new JSONObject(json);
+                assertTrue(expected.similar(new JSONObject(new JSONTokener(json, hinted))));
+                assertTrue(expected.similar(new JSONObject(new JSONTokener(json,
+                        hinted.withCompactObjects(true).withCompactNumericArrays(true)))));
+            }
+        }
+        JSONObject sized = new JSONObject(4);
+        sized.put("a", 1);
+        assertEquals("{\"a\":1}", sized.toString());
+    }
+
     @Test(expected=NullPointerException.class)
     public void testPutNullBoolean() {
         // null put key 
@@ -3638,6 +3908,68 @@ public class JSONObjectTest {
         jsonObject.put(null, new Object());
         fail("Expected an exception");
     }
+    /**
+     * writeBean writes the same JSON as wrap(value).toString().
+     */
+    @Test
+    public void writeBeanMatchesWrap() {
+        BindableBean bean = new JSONObject(BINDABLE_JSON).toBean(BindableBean.class);
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("bean", bean);
+        map.put("list", Arrays.asList(new MyBeanCustomNameSubClass(), null, "caf\u00e9"));
+        map.put("array", new int[] {1, 2});
+        map.put("absent", null);
+        map.put("number", new MyNumber());
+        Object[] values = {bean, new MyBeanCustomNameSubClass(), map, Arrays.asList(bean, bean)};
+        for (Object value : values) {
+            String expected = JSONObject.wrap(value).toString();
+            String written = JSONObject.writeBean(value, new StringWriter()).toString();
+            if (expected.startsWith("{")) {
+                assertTrue(written, new JSONObject(expected).similar(new JSONObject(written)));
+            } else {
+                assertTrue(written, new JSONArray(expected).similar(new JSONArray(written)));
+            }
+        }
+        Object[] simple = {MyEnum.VAL3, "text", 1.5d, null};
+        for (Object value : simple) {
+            assertEquals(JSONObject.valueToString(value),
+                    JSONObject.writeBean(value, new StringWriter()).toString());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(out == JSONObject.writeBean(map, out));
+        assertTrue(new JSONObject(JSONObject.writeBean(map, new StringWriter()).toString())
+                .similar(new JSONObject(new String(out.toByteArray(), StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * writeBean reports recursive beans as JSONObject(Object) does, and
+     * writes beans that are repeated without recursion.
+     */
+    @Test
+    public void writeBeanRecursion() {
+        RecursiveBean a = new RecursiveBean("ObjA");
+        RecursiveBean b = new RecursiveBean("ObjB");
+        b.setRef(a);
+        b.setRef2(a);
+        assertTrue(new JSONObject(b).similar(
+                new JSONObject(JSONObject.writeBean(b, new StringWriter()).toString())));
+        a.setRef(b);
+        try {
+            JSONObject.writeBean(b, new StringWriter());
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("JavaBean object contains recursively defined member variable of key \"ref\"",
+                    e.getMessage());
+        }
+        a.setRef(Collections.singletonList(b));
+        try {
+            JSONObject.writeBean(b, new StringWriter());
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("JavaBean object contains recursively defined"));
+        }
+    }
+
     @Test(expected=JSONException.class)
     public void testSelfRecursiveObject() {
         // A -> A ...
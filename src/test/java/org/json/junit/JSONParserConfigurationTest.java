@@ -16,6 +16,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -36,6 +37,37 @@ public class JSONParserConfigurationTest {
         assertEquals("duplicate key should be overwritten", "value2", jsonObject.getString("key"));
     }
 
+    @Test
+    public void keyCacheSharesKeysAcrossDocuments() {
+        JSONParserConfiguration config = new JSONParserConfiguration().withKeyCacheSize(100);
+        assertEquals(128, config.getKeyCacheSize());
+        JSONObject first = new JSONObject("{\"name\":1,\"nested\":{\"name\":2}}", config);
+        JSONObject second = new JSONObject(new JSONTokener("{'name':3}", config));
+        String key = keyOf(first, "name");
+        assertSame(key, keyOf(first.getJSONObject("nested"), "name"));
+        assertSame(key, keyOf(second, "name"));
+        assertEquals(3, second.getInt("name"));
+    }
+
+    @Test
+    public void keyCacheIsClonedAndDisabledByDefault() {
+        assertEquals(0, new JSONParserConfiguration().getKeyCacheSize());
+        JSONParserConfiguration config = new JSONParserConfiguration()
+                .withKeyCacheSize(16)
+                .withStrictMode(true);
+        assertEquals(16, config.getKeyCacheSize());
+        assertEquals(0, config.withKeyCacheSize(0).getKeyCacheSize());
+    }
+
+    private static String keyOf(JSONObject jsonObject, String key) {
+        for (String k : jsonObject.keySet()) {
+            if (k.equals(key)) {
+                return k;
+            }
+        }
+        return null;
+    }
+
     @Test
     public void strictModeIsCloned(){
         JSONParserConfiguration jsonParserConfiguration = new JSONParserConfiguration()
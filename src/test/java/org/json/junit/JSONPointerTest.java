@@ -5,6 +5,7 @@ Public Domain.
 */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -50,6 +51,16 @@ public class JSONPointerTest {
         new JSONPointer((String) null);
     }
 
+    @Test
+    public void equalTokensAreEqualPointers() {
+        JSONPointer pointer = new JSONPointer("/a~1b/0");
+        assertEquals(pointer, new JSONPointer("#/a~1b/0"));
+        assertEquals(pointer, JSONPointer.builder().append("a/b").append(0).build());
+        assertEquals(pointer.hashCode(), new JSONPointer("/a~1b/0").hashCode());
+        assertFalse(pointer.equals(new JSONPointer("/a~1b/1")));
+        assertFalse(pointer.equals(pointer.toString()));
+    }
+
     @Test
     public void objectPropertyQuery() {
         assertEquals("[\"bar\",\"baz\"]", query("/foo").toString());
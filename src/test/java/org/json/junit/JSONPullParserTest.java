@@ -0,0 +1,173 @@
+package org.json.junit;
+
+/*
+Public Domain.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.json.JSONPullParser;
+import org.json.JSONPullParser.Event;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+/**
+ * Tests for JSONPullParser.
+ */
+public class JSONPullParserTest {
+
+    private static List<Event> events(JSONPullParser parser) {
+        List<Event> events = new ArrayList<Event>();
+        while (parser.hasNext()) {
+            events.add(parser.next());
+        }
+        return events;
+    }
+
+    @Test
+    public void eventsOfNestedDocument() {
+        JSONPullParser parser = new JSONPullParser(
+                "{\"a\": [1, \"two\", true, null, {}], \"b\": {\"c\": 2.5}}");
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals(1, parser.getDepth());
+        assertEquals(Event.KEY, parser.next());
+        assertEquals("a", parser.getString());
+        assertEquals(Event.START_ARRAY, parser.next());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(1, parser.getNumber());
+        assertEquals(Event.VALUE_STRING, parser.next());
+        assertEquals("two", parser.getString());
+        assertEquals(Event.VALUE_BOOLEAN, parser.next());
+        assertTrue(parser.getBoolean());
+        assertEquals(Event.VALUE_NULL, parser.next());
+        assertEquals(JSONObject.NULL, parser.getValue());
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals(3, parser.getDepth());
+        assertEquals(Event.END_OBJECT, parser.next());
+        assertEquals(Event.END_ARRAY, parser.next());
+        assertEquals(Event.KEY, parser.next());
+        assertEquals("b", parser.getString());
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals(Event.KEY, parser.next());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals("2.5", parser.getString());
+        assertEquals(Event.END_OBJECT, parser.next());
+        assertEquals(Event.END_OBJECT, parser.next());
+        assertEquals(0, parser.getDepth());
+        assertFalse(parser.hasNext());
+    }
+
+    @Test
+    public void scalarRootAndEmptyText() {
+        JSONPullParser parser = new JSONPullParser(" \"text\" ");
+        assertEquals(Event.VALUE_STRING, parser.next());
+        assertFalse(parser.hasNext());
+        assertFalse(new JSONPullParser("   ").hasNext());
+    }
+
+    @Test
+    public void readObjectMaterializesOneRecordAtATime() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i).append(",\"tags\":[\"x\",\"y\"]}");
+        }
+        sb.append(']');
+        JSONPullParser parser = new JSONPullParser(new StringReader(sb.toString()));
+        assertEquals(Event.START_ARRAY, parser.next());
+        int count = 0;
+        while (parser.next() == Event.START_OBJECT) {
+            JSONObject record = parser.readObject();
+            assertEquals(Event.END_OBJECT, parser.getEvent());
+            assertEquals(count, record.getInt("id"));
+            assertEquals(2, record.getJSONArray("tags").length());
+            count++;
+        }
+        assertEquals(Event.END_ARRAY, parser.getEvent());
+        assertEquals(5000, count);
+        assertFalse(parser.hasNext());
+    }
+
+    @Test
+    public void readArrayAndSkipChildren() {
+        JSONPullParser parser = new JSONPullParser(
+                "{\"skip\": {\"s\": \"}]\\\"\", \"n\": [[1], {\"x\": []}]}, \"keep\": [1, [2]]}");
+        parser.next();
+        assertEquals(Event.KEY, parser.next());
+        assertEquals(Event.START_OBJECT, parser.next());
+        parser.skipChildren();
+        assertEquals(Event.END_OBJECT, parser.getEvent());
+        assertEquals(1, parser.getDepth());
+        assertEquals(Event.KEY, parser.next());
+        assertEquals("keep", parser.getString());
+        assertEquals(Event.START_ARRAY, parser.next());
+        JSONArray keep = parser.readArray();
+        assertTrue(new JSONArray("[1, [2]]").similar(keep));
+        assertEquals(Event.END_OBJECT, parser.next());
+        assertFalse(parser.hasNext());
+    }
+
+    @Test
+    public void eventsMatchTreeParser() {
+        String json = "[{\"a\":1,},[,2],'single',{b:c}]";
+        List<Event> events = events(new JSONPullParser(json));
+        assertEquals(15, events.size());
+        assertEquals(Event.END_ARRAY, events.get(events.size() - 1));
+        assertEquals(Event.VALUE_NULL, events.get(6));
+    }
+
+    @Test
+    public void syntaxErrors() {
+        String[] invalid = {"[\"a\" \"b\"]", "{\"a\" 1}", "{\"a\":1", "[1,"};
+        for (String json : invalid) {
+            try {
+                events(new JSONPullParser(json));
+                fail("Expected an exception for " + json);
+            } catch (JSONException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void strictMode() {
+        JSONParserConfiguration strict = new JSONParserConfiguration().withStrictMode(true);
+        try {
+            events(new JSONPullParser(new JSONTokener("[1,]", strict)));
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Strict mode error: Expected another array element"));
+        }
+        try {
+            events(new JSONPullParser(new JSONTokener("{\"a\":1} x", strict)));
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Strict mode error: Unparsed characters found at end of input text"));
+        }
+    }
+
+    @Test
+    public void wrongAccessor() {
+        JSONPullParser parser = new JSONPullParser("[true]");
+        parser.next();
+        try {
+            parser.getString();
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Expected a string but the current event is START_ARRAY", e.getMessage());
+        }
+    }
+}
@@ -11,10 +11,19 @@ import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.CharArrayReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 import org.json.*;
 import org.junit.Test;
@@ -180,8 +189,8 @@ public class JSONTokenerTest {
     }
     
     /**
-     * Tests the failure of the skipTo method with a buffered reader. Preferably
-     * we'd like this not to fail but at this time we don't have a good recovery.
+     * Tests the skipTo method with a buffered reader when the requested character
+     * is further away than any fixed read-ahead limit.
      * 
      * @throws IOException thrown if something unexpected happens.
      */
@@ -212,6 +221,37 @@ public class JSONTokenerTest {
         }
     }
 
+    /**
+     * Tests that skipTo rolls back a failed search of up to 1,000,000 characters
+     * of a reader, and finds a character that is further away.
+     *
+     * @throws IOException thrown if something unexpected happens.
+     */
+    @Test
+    public void testSkipToWithinMarkLimitWithBufferedReader() throws IOException {
+        final char[] superLongBuffer = new char[1000001];
+        Arrays.fill(superLongBuffer, 'A');
+        superLongBuffer[1000000] = 'B';
+        Reader reader = new BufferedReader(new CharArrayReader(superLongBuffer, 0, 1000000));
+        try {
+            final JSONTokener tokener = new JSONTokener(reader);
+            assertEquals(0, tokener.skipTo('B'));
+            assertEquals(" at 0 [character 1 line 1]", tokener.toString());
+            assertEquals('A', tokener.next());
+        } finally {
+            reader.close();
+        }
+        reader = new BufferedReader(new CharArrayReader(superLongBuffer));
+        try {
+            final JSONTokener tokener = new JSONTokener(reader);
+            assertEquals('B', tokener.skipTo('B'));
+            assertEquals('B', tokener.next());
+            assertFalse(tokener.more());
+        } finally {
+            reader.close();
+        }
+    }
+
     /**
      * Tests the success of the skipTo method with a String reader.
      * 
@@ -370,4 +410,199 @@ public class JSONTokenerTest {
             assertEquals(new JSONArray(input).toString(), value.toString());
         }
     }
+
+    @Test
+    public void charArraySourceMatchesStringSource() {
+        String input = "{\"a\":\"b\\u00e9\",\"list\":[1,2.5,true,null]}";
+        JSONObject fromChars = new JSONObject(new JSONTokener(input.toCharArray()));
+        assertTrue(fromChars.similar(new JSONObject(input)));
+    }
+
+    @Test
+    public void utf8ByteSourcesMatchStringSource() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 4000; i++) {
+            sb.append("{\"k\u00e9y\":\"a\u00e9\u20ac\ud83d\ude00 ").append(i).append("\"},");
+        }
+        sb.append("\"\u4e2d\u6587\"]");
+        String input = sb.toString();
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        JSONArray expected = new JSONArray(input);
+
+        assertTrue(expected.similar(new JSONArray(new JSONTokener(bytes))));
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertTrue(expected.similar(new JSONArray(new JSONTokener(direct))));
+        assertEquals(0, direct.position());
+        assertTrue(expected.similar(new JSONArray(new JSONTokener(ByteBuffer.wrap(bytes)))));
+        // a stream that splits every multi-byte sequence
+        InputStream oneByteAtATime = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        assertTrue(expected.similar(new JSONArray(new JSONTokener(oneByteAtATime))));
+
+        byte[] framed = ("xx" + input + "yy").getBytes(StandardCharsets.UTF_8);
+        assertTrue(expected.similar(new JSONArray(
+                new JSONTokener(framed, 2, bytes.length, new JSONParserConfiguration()))));
+    }
+
+    @Test
+    public void mappedFileSource() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 20000; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"caf\u00e9 ").append(i).append("\"},");
+        }
+        sb.append("null]");
+        Path file = Files.createTempFile("tokener", ".json");
+        try {
+            Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+            JSONTokener x = JSONTokener.fromPath(file);
+            try {
+                JSONPullParser parser = new JSONPullParser(x);
+                parser.next();
+                int count = 0;
+                while (parser.next() == JSONPullParser.Event.START_OBJECT) {
+                    assertEquals("caf\u00e9 " + count, parser.readObject().getString("name"));
+                    count++;
+                }
+                assertEquals(20000, count);
+            } finally {
+                x.close();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void malformedUtf8IsReplaced() {
+        byte[] bytes = {'[', '"', 'a', (byte) 0xc3, '"', ',', '"', (byte) 0xff, (byte) 0xe2, (byte) 0x82, '"', ']'};
+        JSONArray fromBytes = new JSONArray(new JSONTokener(bytes));
+        JSONArray fromDecoder = new JSONArray(new String(bytes, StandardCharsets.UTF_8));
+        assertEquals("a\ufffd", fromBytes.getString(0));
+        assertEquals(fromDecoder.getString(1), fromBytes.getString(1));
+    }
+
+    @Test
+    public void charArrayRangeSource() {
+        char[] source = "xx[1,2,3]yy".toCharArray();
+        JSONArray array = new JSONArray(new JSONTokener(source, 2, 7, new JSONParserConfiguration()));
+        assertEquals("[1,2,3]", array.toString());
+        try {
+            new JSONTokener(source, 8, 7, new JSONParserConfiguration());
+            fail("Expected exception");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void longStringAcrossBufferRefills() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            sb.append((char) ('a' + i % 26));
+            if (i % 1000 == 0) {
+                sb.append("\\n");
+            }
+        }
+        String text = sb.toString();
+        String json = "{\"key\":\"" + text + "\",\"after\":1}";
+        JSONObject fromReader = new JSONObject(new JSONTokener(new StringReader(json)));
+        JSONObject fromString = new JSONObject(json);
+        assertEquals(text.replace("\\n", "\n"), fromReader.getString("key"));
+        assertTrue(fromReader.similar(fromString));
+        assertEquals(1, fromReader.getInt("after"));
+    }
+
+    @Test
+    public void nextToAcrossBufferRefills() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append('x');
+        }
+        JSONTokener tokener = new JSONTokener(new StringReader(sb + ";rest"));
+        assertEquals(sb.toString(), tokener.nextTo(';'));
+        assertEquals(';', tokener.next());
+        assertEquals("rest", tokener.nextTo(';'));
+        assertFalse(tokener.more());
+    }
+
+    @Test
+    public void unescapedStringAcrossBufferRefills() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 30000; i++) {
+            sb.append((char) ('A' + i % 26));
+        }
+        String text = sb.toString();
+        JSONTokener tokener = new JSONTokener(new StringReader("[\"" + text + "\", \"x\"]"));
+        JSONArray array = new JSONArray(tokener);
+        assertEquals(text, array.getString(0));
+        assertEquals("x", array.getString(1));
+    }
+
+    @Test
+    public void unicodeEscapes() {
+        JSONTokener tokener = new JSONTokener("\\u0041\\u00e9\\uD83D\\uDE00 \\\"q\\\"\"");
+        assertEquals("A\u00e9\uD83D\uDE00 \"q\"", tokener.nextString('"'));
+        tokener = new JSONTokener("\\u12G4\"");
+        try {
+            tokener.nextString('"');
+            fail("Expected exception");
+        } catch (JSONException e) {
+            assertEquals("Illegal escape. \\u must be followed by a 4 digit hexadecimal number. "
+                    + "\\12G4 is not valid. at 6 [character 7 line 1]", e.getMessage());
+        }
+        tokener = new JSONTokener("\\u12");
+        try {
+            tokener.nextString('"');
+            fail("Expected exception");
+        } catch (JSONException e) {
+            assertEquals("Substring bounds error at 4 [character 5 line 1]", e.getMessage());
+        }
+    }
+
+    @Test
+    public void unquotedValuesMatchStringToValue() {
+        String[] tokens = {
+            "0", "-0", "7", "-7", "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "999999999999999999", "9223372036854775807", "9223372036854775808", "1.50", "-0.0",
+            "1e5", "1.5E-3", "-2.5e+10", "00", "-01", "1.", ".5", "-", "1e", "0x1.0P-1074",
+            "True", "NULL", "true", "false", "null", "abc", "1abc"
+        };
+        for (String token : tokens) {
+            Object expected = JSONObject.stringToValue(token);
+            Object actual = new JSONTokener(token + ",").nextValue();
+            assertEquals(token, expected, actual);
+            assertEquals(token, expected.getClass(), actual.getClass());
+        }
+    }
+
+    @Test
+    public void unquotedValueAcrossBufferRefills() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 3000; i++) {
+            sb.append(i).append(".25,");
+        }
+        sb.append("true]");
+        JSONArray array = new JSONArray(new JSONTokener(new StringReader(sb.toString())));
+        assertEquals(3001, array.length());
+        assertEquals(new BigDecimal("2999.25"), array.get(2999));
+        assertEquals(Boolean.TRUE, array.get(3000));
+    }
+
+    @Test
+    public void decimalsAsDoubles() {
+        JSONParserConfiguration config = new JSONParserConfiguration().withUseDoubleForDecimals(true);
+        JSONArray array = new JSONArray("[1.5, -2.5e-3, 12345678901234567.8, 1e400, 1e-400, -0.0, 3]", config);
+        assertEquals(Double.valueOf(1.5), array.get(0));
+        assertEquals(Double.valueOf(-2.5e-3), array.get(1));
+        assertEquals(Double.valueOf(12345678901234567.8), array.get(2));
+        assertEquals(new BigDecimal("1e400"), array.get(3));
+        assertEquals(new BigDecimal("1e-400"), array.get(4));
+        assertEquals(Double.valueOf(-0.0), array.get(5));
+        assertEquals(Integer.valueOf(3), array.get(6));
+    }
 }
@@ -1233,4 +1233,17 @@ public class XMLConfigurationTest {
             assertTrue("Error: " +e.getMessage(), false);
         }
     }
+
+    @Test
+    public void keyCacheSharesElementNames() {
+        XMLParserConfiguration config = new XMLParserConfiguration().withKeyCacheSize(64);
+        assertEquals(64, config.getKeyCacheSize());
+        JSONObject first = XML.toJSONObject(new StringReader("<a><item id=\"1\">x</item></a>"), config);
+        JSONObject second = XML.toJSONObject(new StringReader("<b><item id=\"2\">y</item></b>"), config);
+        String firstKey = first.getJSONObject("a").keySet().iterator().next();
+        String secondKey = second.getJSONObject("b").keySet().iterator().next();
+        assertEquals("item", firstKey);
+        assertTrue(firstKey == secondKey);
+        assertEquals(2, second.getJSONObject("b").getJSONObject("item").getInt("id"));
+    }
 }
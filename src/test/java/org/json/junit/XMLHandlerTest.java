@@ -0,0 +1,189 @@
+package org.json.junit;
+
+/*
+Public Domain.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.XML;
+import org.json.XMLHandler;
+import org.json.XMLParserConfiguration;
+import org.json.XMLTokener;
+import org.junit.Test;
+
+/**
+ * Tests for XML.parse with an XMLHandler.
+ */
+public class XMLHandlerTest {
+
+    /** Records the events as strings. */
+    private static class Recorder implements XMLHandler {
+        final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void startElement(String name, List<Map.Entry<String, String>> attributes) {
+            this.events.add("start " + name + " " + attributes);
+        }
+
+        @Override
+        public void text(String text) {
+            this.events.add("text " + text);
+        }
+
+        @Override
+        public void cdata(String text) {
+            this.events.add("cdata " + text);
+        }
+
+        @Override
+        public void endElement(String name) {
+            this.events.add("end " + name);
+        }
+    }
+
+    private static List<String> events(String xml) {
+        Recorder recorder = new Recorder();
+        XML.parse(new StringReader(xml), recorder);
+        return recorder.events;
+    }
+
+    @Test
+    public void eventsInDocumentOrder() {
+        List<String> events = events(
+                "<?xml version=\"1.0\"?><!-- comment --><a id=\"1\" b=\"x &amp; y\" flag>"
+                + "one<b/><![CDATA[<raw>]]> two <c>3</c></a> trailing");
+        assertEquals("[start a [id=1, b=x & y, flag=], text one, start b [], end b, "
+                + "cdata <raw>, text two, start c [], text 3, end c, end a]", events.toString());
+    }
+
+    @Test
+    public void repeatedAttributesAreAllReported() {
+        assertEquals("[start a [x=1, y=, x=2], end a]", events("<a x=\"1\" y x=\"2\"/>").toString());
+        assertEquals("{\"a\":{\"x\":[1,2]}}", XML.toJSONObject("<a x=\"1\" x=\"2\"/>").toString());
+        assertEquals("{\"a\":{\"x\":[1,2],\"y\":\"\"}}", XML.toJSONObject("<a x=\"1\" y x=\"2\"/>").toString());
+        JSONObject tree = XML.toJSONObject("<r><a x=\"1\" x=\"2\"/></r>");
+        assertEquals("{\"r\":{\"a\":{\"x\":[1,2]}}}", tree.toString());
+        List<String> streamed = new ArrayList<String>();
+        for (Object node : XML.toStream(new StringReader("<r><a x=\"1\" x=\"2\"/></r>")).toArray()) {
+            streamed.add(((JSONObject.JSONNode) node).getPath() + "=" + ((JSONObject.JSONNode) node).getValue());
+        }
+        assertEquals("[/r/a/x[0]=1, /r/a/x[1]=2]", streamed.toString());
+    }
+
+    @Test
+    public void whitespaceReportedWhenTrimmingDisabled() {
+        Recorder recorder = new Recorder();
+        XML.parse(new StringReader("<a> <b/> </a>"), recorder,
+                new XMLParserConfiguration().withShouldTrimWhitespace(false));
+        assertEquals("[start a [], text  , start b [], end b, text  , end a]",
+                recorder.events.toString());
+    }
+
+    @Test
+    public void handlerCanAbortTheParse() {
+        final int[] count = new int[1];
+        XMLHandler handler = new Recorder() {
+            @Override
+            public void startElement(String name, List<Map.Entry<String, String>> attributes) {
+                if (++count[0] == 2) {
+                    throw new JSONException("stop");
+                }
+            }
+        };
+        try {
+            XML.parse(new StringReader("<a><b/><c/></a>"), handler);
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("stop", e.getMessage());
+        }
+        assertEquals(2, count[0]);
+    }
+
+    @Test
+    public void syntaxErrors() {
+        String[] invalid = {"<a>", "<a></b>", "</a>", "<a x=></a>", "<a><![CDATA[x</a>"};
+        for (String xml : invalid) {
+            try {
+                events(xml);
+                fail("Expected an exception for " + xml);
+            } catch (JSONException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void maximumNestingDepth() {
+        XMLParserConfiguration config = new XMLParserConfiguration().withMaxNestingDepth(2);
+        XML.parse(new StringReader("<a><b><c/></b></a>"), new Recorder(), config);
+        try {
+            XML.parse(new StringReader("<a><b><c><d/></c></b></a>"), new Recorder(), config);
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Maximum nesting depth of 2 reached"));
+        }
+    }
+
+    @Test
+    public void nilElementWithCloseTag() {
+        JSONObject jo = XML.toJSONObject("<r><a xsi:nil=\"true\"></a><b xsi:nil=\"true\"/></r>",
+                new XMLParserConfiguration().withConvertNilAttributeToNull(true));
+        assertEquals(JSONObject.NULL, jo.getJSONObject("r").get("a"));
+        assertEquals(JSONObject.NULL, jo.getJSONObject("r").get("b"));
+    }
+
+    @Test
+    public void contentAttributeIsNotCollapsed() {
+        String xml = "<r><a content=\"1\"/></r>";
+        assertTrue(new JSONObject("{\"r\":{\"a\":{\"content\":1}}}")
+                .similar(XML.toJSONObject(xml)));
+        Set<String> forceList = new HashSet<String>();
+        forceList.add("a");
+        assertTrue(new JSONObject("{\"r\":{\"a\":[{\"content\":1}]}}")
+                .similar(XML.toJSONObject(xml, new XMLParserConfiguration().withForceList(forceList))));
+        assertTrue(new JSONObject("{\"r\":{\"a\":{\"content\":\"1\"}}}")
+                .similar(XML.toJSONObject(xml, XMLParserConfiguration.KEEP_STRINGS)));
+        assertTrue(new JSONObject("{\"r\":{\"a\":1}}")
+                .similar(XML.toJSONObject("<r><a content=\"1\"></a></r>")));
+    }
+
+    @Test
+    public void mappedFileSource() throws IOException {
+        String xml = "<?xml version=\"1.0\"?><r><a n=\"1\">caf\u00e9</a><b>2</b></r>";
+        Path file = Files.createTempFile("tokener", ".xml");
+        try {
+            Files.write(file, xml.getBytes(StandardCharsets.UTF_8));
+            XMLTokener x = XMLTokener.fromPath(file, XMLParserConfiguration.KEEP_STRINGS);
+            try {
+                assertTrue(XML.toJSONObject(xml, XMLParserConfiguration.KEEP_STRINGS)
+                        .similar(XML.toJSONObject(x)));
+            } finally {
+                x.close();
+            }
+            x = XMLTokener.fromPath(file);
+            try {
+                assertEquals(XML.toStream(new StringReader(xml)).count(), XML.toStream(x).count());
+            } finally {
+                x.close();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
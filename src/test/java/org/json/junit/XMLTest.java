@@ -21,6 +21,7 @@ import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 import org.json.*;
 import org.junit.Rule;
@@ -1426,7 +1427,85 @@ public class XMLTest {
         assertEquals(jsonObject3.getJSONObject("color").getString("value"), "008E97");
     }
 
-}
-
-
+    /**
+     * skipPast ends where reading one character at a time to the end of the
+     * string would, with the same position, whether the input is read in
+     * small pieces or not.
+     */
+    @Test
+    public void skipPastMatchesCharacterReading() {
+        Random random = new Random(11);
+        String alphabet = "<>-]?ab\r\n\u00e9";
+        String[] targets = {"<", "-->", "]]>", "?>", "\u00e9>", "ab-"};
+        for (int round = 0; round < 500; round++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(60);
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            final String text = sb.toString();
+            String target = targets[random.nextInt(targets.length)];
+            int found = text.indexOf(target);
+            int consumed = found < 0 ? text.length() : found + target.length();
+
+            XMLTokener expected = new XMLTokener(text);
+            for (int i = 0; i < consumed; i++) {
+                expected.next();
+            }
+            if (found < 0) {
+                // reading past the end
+                expected.next();
+            }
+            XMLTokener whole = new XMLTokener(text);
+            whole.skipPast(target);
+            XMLTokener pieces = new XMLTokener(new Reader() {
+                private int position;
+
+                @Override
+                public int read(char[] buffer, int offset, int count) {
+                    if (this.position >= text.length()) {
+                        return -1;
+                    }
+                    int n = Math.min(Math.min(count, 3), text.length() - this.position);
+                    text.getChars(this.position, this.position + n, buffer, offset);
+                    this.position += n;
+                    return n;
+                }
 
+                @Override
+                public void close() {
+                }
+            });
+            pieces.skipPast(target);
+            pieces.skipPast("");
+            for (XMLTokener actual : new XMLTokener[] {whole, pieces}) {
+                assertEquals(JSONObject.quote(text) + " " + target, expected.toString(), actual.toString());
+                assertEquals(expected.end(), actual.end());
+                assertEquals(expected.more(), actual.more());
+            }
+            char next = expected.next();
+            assertEquals(next, whole.next());
+            assertEquals(next, pieces.next());
+            if (consumed < text.length()) {
+                expected.back();
+                whole.back();
+                assertEquals(expected.next(), whole.next());
+            }
+        }
+        // a null character ends the search, as it ends next()
+        XMLTokener stopped = new XMLTokener("ab\u0000c<d");
+        stopped.skipPast("<");
+        assertTrue(stopped.end());
+        assertEquals('c', stopped.next());
+        // also when a longer string is not found before the null character
+        XMLTokener stoppedLong = new XMLTokener("ab\u0000cdefgh");
+        stoppedLong.skipPast("-->");
+        XMLTokener nextStopped = new XMLTokener("ab\u0000cdefgh");
+        nextStopped.next();
+        nextStopped.next();
+        nextStopped.next();
+        assertTrue(stoppedLong.end());
+        assertEquals(nextStopped.toString(), stoppedLong.toString());
+        assertEquals('c', stoppedLong.next());
+    }
+}
@@ -0,0 +1,67 @@
+package org.json.junit.data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONPropertyIgnore;
+import org.json.JSONPropertyName;
+
+/**
+ * A bean with getters and setters, to test binding JSON to beans.
+ */
+public class BindableBean {
+    private String name;
+    private int age;
+    private boolean active;
+    private BigDecimal balance;
+    private MyEnum kind;
+    private List<String> tags;
+    private Set<Integer> codes;
+    private Map<String, Address> addresses;
+    private long[] ids;
+    private Address home;
+    private String secret;
+    private String nick;
+
+    /**
+     * A nested bean.
+     */
+    public static class Address {
+        private String city;
+        private int zip;
+
+        public String getCity() { return this.city; }
+        public void setCity(String city) { this.city = city; }
+        public int getZip() { return this.zip; }
+        public void setZip(int zip) { this.zip = zip; }
+    }
+
+    public String getName() { return this.name; }
+    public void setName(String name) { this.name = name; }
+    public int getAge() { return this.age; }
+    public void setAge(int age) { this.age = age; }
+    public boolean isActive() { return this.active; }
+    public void setActive(boolean active) { this.active = active; }
+    public BigDecimal getBalance() { return this.balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+    public MyEnum getKind() { return this.kind; }
+    public void setKind(MyEnum kind) { this.kind = kind; }
+    public List<String> getTags() { return this.tags; }
+    public void setTags(List<String> tags) { this.tags = tags; }
+    public Set<Integer> getCodes() { return this.codes; }
+    public void setCodes(Set<Integer> codes) { this.codes = codes; }
+    public Map<String, Address> getAddresses() { return this.addresses; }
+    public void setAddresses(Map<String, Address> addresses) { this.addresses = addresses; }
+    public long[] getIds() { return this.ids; }
+    public void setIds(long[] ids) { this.ids = ids; }
+    public Address getHome() { return this.home; }
+    public void setHome(Address home) { this.home = home; }
+    @JSONPropertyIgnore
+    public String getSecret() { return this.secret; }
+    public void setSecret(String secret) { this.secret = secret; }
+    @JSONPropertyName("nickname")
+    public String getNick() { return this.nick; }
+    public void setNick(String nick) { this.nick = nick; }
+}
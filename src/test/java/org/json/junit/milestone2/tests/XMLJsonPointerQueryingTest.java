@@ -4,14 +4,131 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONPointer;
 import org.json.XML;
+import org.json.XMLPathQuery;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class XMLJsonPointerQueryingTest {
+    @Test
+    public void testManyPathsInOnePass() {
+        String xml = "<?xml version=\"1.0\"?><!-- books -->" +
+                "<catalog>" +
+                "<book id='bk101'><title>XML Developer's Guide</title><price>44.95</price></book>" +
+                "<magazine><title>Monthly</title></magazine>" +
+                "<book id='bk102'><title>Midnight Rain</title><author><name>Ralls</name></author></book>" +
+                "</catalog>";
+        List<JSONPointer> paths = Arrays.asList(
+                new JSONPointer("/catalog/book/1"),
+                new JSONPointer("/catalog/book/1/author"),
+                new JSONPointer("/catalog/magazine/title"),
+                new JSONPointer("/catalog/book/0/price"),
+                new JSONPointer("/catalog/book/5"),
+                new JSONPointer("/catalog"));
+
+        Map<JSONPointer, JSONObject> results = XML.toJSONObjects(new StringReader(xml), paths);
+
+        assertEquals(Arrays.asList(paths.get(0), paths.get(1), paths.get(2), paths.get(3), paths.get(5)),
+                Arrays.asList(results.keySet().toArray()));
+        for (Map.Entry<JSONPointer, JSONObject> entry : results.entrySet()) {
+            JSONObject expected = XML.toJSONObject(new StringReader(xml), entry.getKey());
+            assertTrue(entry.getKey().toString(), expected.similar(entry.getValue()));
+        }
+        assertEquals("Ralls", results.get(paths.get(1)).query("/name/content"));
+    }
+
+    @Test
+    public void testManyPathsStopWhenAllFound() {
+        String xml = "<a><b><c>1</c></b><d>2</d><e>";
+        JSONPointer c = new JSONPointer("/a/b/c");
+        JSONPointer d = new JSONPointer("/a/d");
+        Map<JSONPointer, JSONObject> results = XML.toJSONObjects(new StringReader(xml), Arrays.asList(c, d));
+        assertEquals("1", results.get(c).get("content"));
+        assertEquals("2", results.get(d).get("content"));
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void testEqualPathsAreOneKey() {
+        String xml = "<a><b><c>1</c></b><d>2</d><e>";
+        JSONPointer c = new JSONPointer("/a/b/c");
+        Map<JSONPointer, JSONObject> results = XML.toJSONObjects(new StringReader(xml),
+                Arrays.asList(c, c, new JSONPointer("/a/b/c"), JSONPointer.builder().append("a").append("d").build()));
+        assertEquals(2, results.size());
+        assertEquals("1", results.get(new JSONPointer("/a/b/c")).get("content"));
+        assertEquals("2", results.get(new JSONPointer("/a/d")).get("content"));
+    }
+
+    @Test
+    public void testCompiledQueryIsReusable() throws Exception {
+        final JSONPointer id = new JSONPointer("/order/id");
+        final JSONPointer item = new JSONPointer("/order/item/1");
+        final XMLPathQuery query = new XMLPathQuery(id, item);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Map<JSONPointer, JSONObject>>> results = new ArrayList<Future<Map<JSONPointer, JSONObject>>>();
+            for (int i = 0; i < 64; i++) {
+                final String xml = "<order><id>" + i + "</id><item sku='a'/><item sku='b" + i + "'/></order>";
+                results.add(executor.submit(new Callable<Map<JSONPointer, JSONObject>>() {
+                    @Override
+                    public Map<JSONPointer, JSONObject> call() {
+                        return query.query(new StringReader(xml));
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Map<JSONPointer, JSONObject> result = results.get(i).get();
+                assertEquals(String.valueOf(i), result.get(id).get("content"));
+                assertEquals("b" + i, result.get(item).get("sku"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            new XMLPathQuery(new JSONPointer(""));
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Path not found: ", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSkippedSubtreesAreScannedRaw() {
+        String xml = "<root>" +
+                "<skip a='x>y' b=\"/>\"><!-- <target>no</target> --><![CDATA[</skip><target>]]>" +
+                "<?pi <target>?><skip><skip/></skip><inner attr='1'/>text &amp; more</skip>" +
+                "<other/>" +
+                "<target id='t'><value>yes</value></target>" +
+                "</root>";
+        JSONPointer target = new JSONPointer("/root/target");
+        JSONPointer missing = new JSONPointer("/root/skip/target");
+        Map<JSONPointer, JSONObject> results = XML.toJSONObjects(new StringReader(xml), Arrays.asList(target));
+        assertEquals("t", results.get(target).get("id"));
+        assertEquals("yes", results.get(target).query("/value/content"));
+        assertTrue(XML.toJSONObjects(new StringReader(xml), Arrays.asList(missing)).isEmpty());
+        try {
+            XML.toJSONObjects(new StringReader("<root><skip><a></skip>"), Arrays.asList(target));
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Unclosed tag skip"));
+        }
+    }
+
     @Test
     public void testXML() {
         String xmlString = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"+
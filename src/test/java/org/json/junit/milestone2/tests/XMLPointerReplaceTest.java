@@ -8,6 +8,14 @@ import static org.junit.Assert.*;
 
 
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class XMLPointerReplaceTest {
 
@@ -25,6 +33,91 @@ public class XMLPointerReplaceTest {
         assertEquals("John", result.getJSONObject("book").get("author"));
     }
 
+    @Test
+    public void testReplaceIndexedElement() {
+        String xml = "<catalog><book><title>A</title></book><book><title>B</title><book>inner</book></book>"
+                + "<book><title>C</title></book></catalog>";
+        JSONObject replacement = new JSONObject().put("title", "New");
+
+        JSONObject result = XML.toJSONObject(new StringReader(xml), new JSONPointer("/catalog/book/1"), replacement);
+
+        assertEquals("A", result.query("/catalog/book/0/title"));
+        assertEquals("New", result.query("/catalog/book/1/title"));
+        assertEquals("C", result.query("/catalog/book/2/title"));
+    }
+
+    @Test
+    public void testReplacementIsAccumulatedWithItsSiblings() {
+        String xml = "<r><a>x</a><a>y</a><a>z</a></r>";
+        JSONObject replacement = new JSONObject().put("b", 1);
+
+        JSONObject result = XML.toJSONObject(new StringReader(xml), new JSONPointer("/r/a/1"), replacement);
+        assertTrue(new JSONObject("{\"r\":{\"a\":[\"x\",{\"b\":1},\"z\"]}}").similar(result));
+
+        result = XML.toJSONObject(new StringReader("<r><a>x</a></r>"), new JSONPointer("/r/a"), replacement);
+        assertTrue(new JSONObject("{\"r\":{\"a\":{\"b\":1}}}").similar(result));
+    }
+
+    @Test
+    public void testReplaceOnlyAtFullPath() {
+        String xml = "<book><author><title>Sir</title></author><title>Old</title></book>";
+        JSONObject replacement = new JSONObject().put("content", "New");
+
+        JSONObject result = XML.toJSONObject(new StringReader(xml), new JSONPointer("/book/title"), replacement);
+
+        assertEquals("Sir", result.query("/book/author/title"));
+        assertEquals("New", result.query("/book/title/content"));
+    }
+
+    @Test
+    public void testReplaceMany() {
+        String xml = "<book><title>Old</title><author><name>John</name><born>1900</born></author><year>2000</year></book>";
+        Map<JSONPointer, JSONObject> replacements = new LinkedHashMap<JSONPointer, JSONObject>();
+        replacements.put(new JSONPointer("/book/title"), new JSONObject().put("content", "New"));
+        replacements.put(new JSONPointer("/book/author/born"), new JSONObject().put("year", 1901));
+
+        JSONObject result = XML.toJSONObject(new StringReader(xml), replacements);
+
+        assertEquals("New", result.query("/book/title/content"));
+        assertEquals("John", result.query("/book/author/name"));
+        assertEquals(1901, result.query("/book/author/born/year"));
+        assertEquals(2000, result.query("/book/year"));
+
+        replacements.put(new JSONPointer("/book/missing"), new JSONObject());
+        try {
+            XML.toJSONObject(new StringReader(xml), replacements);
+            fail("Expected an exception");
+        } catch (RuntimeException e) {
+            assertEquals("Replacement failed or path not found: /book/missing", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConcurrentReplacements() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<JSONObject>> results = new ArrayList<Future<JSONObject>>();
+            for (int i = 0; i < 64; i++) {
+                final int n = i;
+                results.add(executor.submit(new Callable<JSONObject>() {
+                    @Override
+                    public JSONObject call() {
+                        String xml = "<book><title>Old</title><author>John</author></book>";
+                        return XML.toJSONObject(new StringReader(xml), new JSONPointer(n % 2 == 0 ? "/book/title" : "/book/author"),
+                                new JSONObject().put("n", n));
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                JSONObject result = results.get(i).get();
+                assertEquals(i, result.query(i % 2 == 0 ? "/book/title/n" : "/book/author/n"));
+                assertEquals(i % 2 == 0 ? "John" : "Old", result.query(i % 2 == 0 ? "/book/author" : "/book/title"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 
 
 
@@ -1,17 +1,27 @@
 package org.json.junit.milestone4.tests;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONObject.JSONNode;
 import org.json.XML;
+import org.json.XMLParserConfiguration;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -71,4 +81,81 @@ public class JSONObjectStreamTest {
         assertTrue(cheapPrices.stream()
                 .allMatch(n -> Double.parseDouble(n.getValue().toString()) < 10.0));
     }
+
+    private static List<String> describe(Stream<JSONNode> nodes) {
+        return nodes.map(n -> n.getPath() + "=" + n.getValue()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void jsonReaderStreamMatchesTreeStream() {
+        String json = "{\"a\":{\"b\":[1,{\"c\":true},[null,\"x\"]],\"e\":{}},\"d\":2.5}";
+        assertEquals(describe(new JSONObject(json).toStream()),
+                describe(JSONObject.toStream(new StringReader(json))));
+        assertEquals("[[0]=1, [1]/k=v]",
+                describe(JSONObject.toStream(new StringReader("[1,{\"k\":\"v\"}]"))).toString());
+    }
+
+    @Test
+    public void readerStreamStopsEarly() {
+        // the text is invalid after the first leaf, which is never reached by findFirst
+        Optional<JSONNode> first = JSONObject.toStream(new StringReader("{\"a\":1,\"b\":}")).findFirst();
+        assertEquals("/a", first.get().getPath());
+        try {
+            JSONObject.toStream(new StringReader("{\"a\":1,\"b\":}")).count();
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            // expected
+        }
+        first = XML.toStream(new StringReader("<a><b>1</b><c>")).findFirst();
+        assertEquals("/a/b", first.get().getPath());
+    }
+
+    @Test
+    public void xmlReaderStreamMatchesTreeStream() {
+        String xml = "<r id=\"7\"><a>x</a><b/><c k=\"v\">text<d>1</d></c><![CDATA[raw]]></r>";
+        Set<String> tree = new HashSet<>(describe(XML.toJSONObject(xml).toStream()));
+        Set<String> streamed = new HashSet<>(describe(XML.toStream(new StringReader(xml))));
+        assertEquals(tree, streamed);
+    }
+
+    @Test
+    public void xmlReaderStreamOfRepeatedElements() throws Exception {
+        XMLParserConfiguration config = new XMLParserConfiguration()
+                .withForceList(new HashSet<>(Collections.singletonList("book")));
+        try (Reader reader = new InputStreamReader(
+                JSONObjectStreamTest.class.getResourceAsStream("/books.xml"), StandardCharsets.UTF_8)) {
+            Set<String> streamed = new HashSet<>(describe(XML.toStream(reader, config)));
+            assertEquals(new HashSet<>(describe(catalog.toStream())), streamed);
+        }
+    }
+
+    @Test
+    public void deepDocumentDoesNotOverflow() {
+        JSONObject root = new JSONObject();
+        JSONObject current = root;
+        for (int i = 0; i < 100000; i++) {
+            JSONObject child = new JSONObject();
+            current.put("n", child);
+            current = child;
+        }
+        current.put("leaf", 1);
+        List<JSONNode> nodes = root.toStream().collect(Collectors.toList());
+        assertEquals(1, nodes.size());
+        assertTrue(nodes.get(0).getPath().endsWith("/n/leaf"));
+    }
+
+    @Test
+    public void parallelStreamKeepsEncounterOrder() {
+        JSONObject root = new JSONObject();
+        JSONArray data = new JSONArray();
+        for (int i = 0; i < 10000; i++) {
+            data.put(new JSONObject().put("id", i).put("tags", new JSONArray().put("a").put("b")));
+        }
+        root.put("data", data);
+        List<String> sequential = describe(root.toStream());
+        List<String> parallel = describe(root.toStream().parallel());
+        assertEquals(30000, sequential.size());
+        assertEquals(sequential, parallel);
+        assertTrue(sequential.contains("/data[9999]/tags[1]=b"));
+    }
 }